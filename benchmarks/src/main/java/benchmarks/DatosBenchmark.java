@@ -0,0 +1,130 @@
+package benchmarks;
+
+import datos.GestorDatos;
+import modelo.Anuncio;
+import modelo.Interaccion;
+import modelo.PublicacionModelo;
+import java.util.*;
+
+/**
+ * Entradas sintéticas para los benchmarks, siempre con la misma semilla para
+ * que las corridas sean comparables entre sí.
+ */
+final class DatosBenchmark {
+    static final long SEMILLA = 42;
+
+    private DatosBenchmark() {
+    }
+
+    static List<Anuncio> anuncios(int cantidad) {
+        Random random = new Random(SEMILLA);
+        List<Anuncio> anuncios = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            anuncios.add(new Anuncio("A" + i, 1 + random.nextInt(50), 1 + random.nextInt(500)));
+        }
+        return anuncios;
+    }
+
+    static List<PublicacionModelo> publicaciones(int cantidad) {
+        Random random = new Random(SEMILLA);
+        long ahora = System.currentTimeMillis();
+        List<PublicacionModelo> publicaciones = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Date fecha = new Date(ahora - (long) random.nextInt(30 * 24 * 60) * 60_000);
+            publicaciones.add(new PublicacionModelo("P" + i, "U" + random.nextInt(Math.max(1, cantidad / 10)),
+                    "Publicación " + i, fecha, random.nextInt(1000), 1 + random.nextInt(10), 1 + random.nextInt(300)));
+        }
+        return publicaciones;
+    }
+
+    /**
+     * Red de amistades no dirigida con grado medio "gradoMedio": cada usuario
+     * se conecta con usuarios elegidos al azar.
+     */
+    static Map<String, List<String>> amistades(int usuarios, int gradoMedio) {
+        Random random = new Random(SEMILLA);
+        Map<String, Set<String>> conjuntos = new LinkedHashMap<>();
+        for (int i = 0; i < usuarios; i++) {
+            conjuntos.put(id(i), new LinkedHashSet<>());
+        }
+        long aristas = (long) usuarios * gradoMedio / 2;
+        for (long a = 0; a < aristas && usuarios > 1; a++) {
+            int u = random.nextInt(usuarios);
+            int v = random.nextInt(usuarios);
+            if (u != v) {
+                conjuntos.get(id(u)).add(id(v));
+                conjuntos.get(id(v)).add(id(u));
+            }
+        }
+        return aListas(conjuntos);
+    }
+
+    /**
+     * Árbol aleatorio: cada usuario se conecta con uno anterior. Entre dos
+     * usuarios hay un solo camino simple, así que RutasInfluencia termina
+     * probando que es el óptimo; con ciclos la búsqueda corta por sus límites
+     * y se mediría el límite de tiempo.
+     */
+    static Map<String, List<String>> arbol(int usuarios) {
+        Random random = new Random(SEMILLA);
+        Map<String, Set<String>> conjuntos = new LinkedHashMap<>();
+        conjuntos.put(id(0), new LinkedHashSet<>());
+        for (int i = 1; i < usuarios; i++) {
+            String padre = id(random.nextInt(i));
+            conjuntos.put(id(i), new LinkedHashSet<>());
+            conjuntos.get(id(i)).add(padre);
+            conjuntos.get(padre).add(id(i));
+        }
+        return aListas(conjuntos);
+    }
+
+    /**
+     * "cantidad" likes al azar entre los usuarios de la red.
+     */
+    static List<Interaccion> interacciones(int usuarios, int cantidad) {
+        Random random = new Random(SEMILLA);
+        List<Interaccion> interacciones = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            interacciones.add(new Interaccion(id(random.nextInt(usuarios)), "P" + i, id(random.nextInt(usuarios))));
+        }
+        return interacciones;
+    }
+
+    /**
+     * GestorDatos que no toca disco: devuelve las listas dadas y descarta lo
+     * que se guarda (igual que el de TestGestionPublicaciones).
+     */
+    static GestorDatos gestorEnMemoria(List<PublicacionModelo> publicaciones, List<Interaccion> interacciones) {
+        return new GestorDatos() {
+            @Override
+            public List<PublicacionModelo> cargarPublicaciones() {
+                return new ArrayList<>(publicaciones);
+            }
+
+            @Override
+            public List<Interaccion> cargarInteracciones() {
+                return new ArrayList<>(interacciones);
+            }
+
+            @Override
+            public void guardarInteracciones(List<Interaccion> lista) {
+            }
+
+            @Override
+            public void agregarInteraccion(Interaccion interaccion) {
+            }
+        };
+    }
+
+    static String id(int usuario) {
+        return "U" + usuario;
+    }
+
+    private static Map<String, List<String>> aListas(Map<String, Set<String>> conjuntos) {
+        Map<String, List<String>> listas = new HashMap<>(conjuntos.size() * 2);
+        for (Map.Entry<String, Set<String>> entrada : conjuntos.entrySet()) {
+            listas.put(entrada.getKey(), new ArrayList<>(entrada.getValue()));
+        }
+        return listas;
+    }
+}
@@ -0,0 +1,47 @@
+package benchmarks;
+
+import algoritmos.AsignacionPublicidad;
+import algoritmos.OptimizacionPortada;
+import modelo.Anuncio;
+import modelo.PublicacionModelo;
+import org.openjdk.jmh.annotations.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Las dos mochilas 0/1 (AsignacionPublicidad y OptimizacionPortada) con la
+ * estrategia automática de MotorMochila. "tamano" es la cantidad de
+ * elementos; la capacidad queda fija para que el costo crezca con n.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MochilaBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int tamano;
+
+    @Param({"1000"})
+    public int capacidad;
+
+    private List<Anuncio> anuncios;
+    private List<PublicacionModelo> publicaciones;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        anuncios = DatosBenchmark.anuncios(tamano);
+        publicaciones = DatosBenchmark.publicaciones(tamano);
+    }
+
+    @Benchmark
+    public AsignacionPublicidad.ResultadoAsignacion maxAlcance() {
+        return AsignacionPublicidad.maxAlcance(anuncios, capacidad);
+    }
+
+    @Benchmark
+    public OptimizacionPortada.ResultadoOptimizacion optimizarPortada() {
+        return OptimizacionPortada.optimizar(publicaciones, capacidad);
+    }
+}
@@ -0,0 +1,41 @@
+package benchmarks;
+
+import algoritmos.RecomendacionAmigos;
+import org.openjdk.jmh.annotations.*;
+import servicio.ServicioInteracciones;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RecomendacionAmigos.recomendarAmigos (Dijkstra con afinidad) sobre una red
+ * aleatoria de grado medio 10 y un like por usuario. Incluye armar el grafo
+ * compacto, que la versión estática hace en cada llamada.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecomendacionBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int tamano;
+
+    private Map<String, List<String>> grafo;
+    private ServicioInteracciones servicioInteracciones;
+    private String usuario;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        grafo = DatosBenchmark.amistades(tamano, 10);
+        servicioInteracciones = new ServicioInteracciones(DatosBenchmark.gestorEnMemoria(List.of(),
+                DatosBenchmark.interacciones(tamano, tamano)));
+        usuario = DatosBenchmark.id(0);
+    }
+
+    @Benchmark
+    public List<String> recomendarAmigos() {
+        return RecomendacionAmigos.recomendarAmigos(grafo, usuario, servicioInteracciones);
+    }
+}
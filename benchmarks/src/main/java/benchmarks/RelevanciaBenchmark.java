@@ -0,0 +1,43 @@
+package benchmarks;
+
+import modelo.PublicacionModelo;
+import org.openjdk.jmh.annotations.*;
+import servicio.ServicioPublicaciones;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ServicioPublicaciones.obtenerTopPorRelevancia (heap acotado sobre todas las
+ * publicaciones) frente a obtenerRankingRelevancia (índice ya ordenado).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RelevanciaBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int tamano;
+
+    @Param({"10"})
+    public int top;
+
+    private ServicioPublicaciones servicio;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        servicio = new ServicioPublicaciones(DatosBenchmark.gestorEnMemoria(DatosBenchmark.publicaciones(tamano),
+                List.of()));
+    }
+
+    @Benchmark
+    public List<PublicacionModelo> topPorRelevancia() {
+        return servicio.obtenerTopPorRelevancia(top);
+    }
+
+    @Benchmark
+    public List<PublicacionModelo> rankingRelevancia() {
+        return servicio.obtenerRankingRelevancia(top);
+    }
+}
@@ -0,0 +1,45 @@
+package benchmarks;
+
+import algoritmos.RutasInfluencia;
+import org.openjdk.jmh.annotations.*;
+import util.GrafoCompacto;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RutasInfluencia.buscarCadenas, con ramificación y poda y en modo
+ * bidireccional, entre la raíz y el último usuario de un árbol aleatorio (ver
+ * DatosBenchmark.arbol). El grafo compacto se arma una sola vez, fuera de la
+ * medición.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RutasInfluenciaBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    public int tamano;
+
+    private RutasInfluencia rutas;
+    private String origen;
+    private String destino;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        rutas = new RutasInfluencia(GrafoCompacto.desde(DatosBenchmark.arbol(tamano)));
+        origen = DatosBenchmark.id(0);
+        destino = DatosBenchmark.id(tamano - 1);
+    }
+
+    @Benchmark
+    public List<String> buscarCadenas() {
+        return rutas.buscarCadenas(origen, destino);
+    }
+
+    @Benchmark
+    public List<String> buscarCadenasBidireccional() {
+        return rutas.buscarCadenas(origen, destino, RutasInfluencia.Estrategia.BIDIRECCIONAL);
+    }
+}
@@ -1,9 +1,12 @@
 import datos.GestorDatos;
 import servicio.*;
 import util.DatosIniciales;
+import util.Metricas;
 import modelo.*;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Aplicación principal de la Red Social - Sistema Integrado
@@ -19,11 +22,33 @@ public class App {
 
     // Módulos de algoritmos
     private static algoritmos.GestionPublicaciones gestionPublicaciones;
+    private static algoritmos.RecomendacionAmigos recomendacionAmigos;
+    private static algoritmos.FeedAmigos feedAmigos;
 
     private static Scanner scanner;
 
+    private static final int PUBLICACIONES_POR_PAGINA = 10;
+    private static final long SEGUNDOS_ENTRE_VOLCADOS_METRICAS = 60;
+
     public static void main(String[] args) {
-        inicializarSistema();
+        List<String> argumentos = new ArrayList<>(Arrays.asList(args));
+        // --metricas <archivo>: vuelca latencias y contadores al archivo cada minuto y al salir
+        int posicionMetricas = argumentos.indexOf("--metricas");
+        if (posicionMetricas >= 0 && posicionMetricas + 1 < argumentos.size()) {
+            java.io.File archivoMetricas = new java.io.File(argumentos.remove(posicionMetricas + 1));
+            argumentos.remove(posicionMetricas);
+            Metricas.volcarPeriodicamente(archivoMetricas, SEGUNDOS_ENTRE_VOLCADOS_METRICAS, TimeUnit.SECONDS);
+        }
+        // --binario: instantáneas binarias mapeadas en memoria (datos/*.bin) en lugar de CSV
+        inicializarSistema(argumentos.remove("--binario") ? GestorDatos.Formato.BINARIO : GestorDatos.Formato.CSV);
+
+        // modo por lotes (tarea nocturna): java App --recomendaciones-lote <archivo>
+        if (argumentos.size() == 2 && argumentos.get(0).equals("--recomendaciones-lote")) {
+            generarRecomendacionesEnLote(argumentos.get(1));
+            servicioInteracciones.cerrar();
+            return;
+        }
+
         mostrarBienvenida();
 
         boolean continuar = true;
@@ -78,16 +103,30 @@ public class App {
         scanner.close();
     }
 
-    private static void inicializarSistema() {
+    private static void inicializarSistema(GestorDatos.Formato formato) {
         System.out.println("Iniciando Sistema de Red Social...\n");
 
-        gestorDatos = new GestorDatos();
-        servicioUsuarios = new ServicioUsuarios(gestorDatos);
-        servicioPublicaciones = new ServicioPublicaciones(gestorDatos);
-        servicioAnuncios = new ServicioAnuncios(gestorDatos);
-        servicioInteracciones = new ServicioInteracciones();
+        gestorDatos = new GestorDatos(formato);
+
+        // cada servicio lee sus propios archivos: se cargan todos a la vez y el
+        // arranque tarda lo que el archivo más grande, no la suma de todos
+        CompletableFuture<ServicioUsuarios> usuarios =
+                CompletableFuture.supplyAsync(() -> new ServicioUsuarios(gestorDatos));
+        CompletableFuture<ServicioPublicaciones> publicaciones =
+                CompletableFuture.supplyAsync(() -> new ServicioPublicaciones(gestorDatos));
+        CompletableFuture<ServicioAnuncios> anuncios =
+                CompletableFuture.supplyAsync(() -> new ServicioAnuncios(gestorDatos));
+        CompletableFuture<ServicioInteracciones> interacciones =
+                CompletableFuture.supplyAsync(() -> new ServicioInteracciones(gestorDatos));
+
+        servicioUsuarios = usuarios.join();
+        servicioPublicaciones = publicaciones.join();
+        servicioAnuncios = anuncios.join();
+        servicioInteracciones = interacciones.join();
 
         gestionPublicaciones = new algoritmos.GestionPublicaciones(servicioPublicaciones);
+        recomendacionAmigos = new algoritmos.RecomendacionAmigos(servicioUsuarios, servicioInteracciones);
+        feedAmigos = new algoritmos.FeedAmigos(servicioUsuarios, servicioPublicaciones);
 
         scanner = new Scanner(System.in);
 
@@ -219,7 +258,7 @@ public class App {
 
         PublicacionModelo pub = servicioPublicaciones.obtenerPublicacion(id);
         if (pub != null) {
-            pub.setLikes(pub.getLikes() + 1);
+            servicioPublicaciones.actualizarLikes(pub, pub.getLikes() + 1);
             System.out.println("Like agregado! Total: " + pub.getLikes() + " likes");
         } else {
             System.out.println("Publicación no encontrada.");
@@ -328,7 +367,7 @@ public class App {
             return;
         }
 
-        if (servicioPublicaciones.obtenerTodasLasPublicaciones().isEmpty()) {
+        if (servicioPublicaciones.cantidadPublicaciones() == 0) {
             System.out.println("No hay publicaciones disponibles.");
             return;
         }
@@ -468,18 +507,26 @@ public class App {
             return;
         }
 
-        Map<String, List<String>> grafo = servicioUsuarios.obtenerGrafoAmistades();
-
         // Mostrar recomendaciones inteligentes usando Dijkstra + interacciones
         Map<String, String> nombres = obtenerMapaNombres();
-        List<String> recomendaciones = algoritmos.RecomendacionAmigos.recomendarAmigos(grafo, usuarioId,
-                servicioInteracciones);
+        List<String> recomendaciones = recomendacionAmigos.recomendar(usuarioId);
         algoritmos.RecomendacionAmigos.mostrarRecomendaciones(usuario.getNombre(), recomendaciones, nombres);
     }
 
+    private static void generarRecomendacionesEnLote(String archivo) {
+        try {
+            long inicio = System.currentTimeMillis();
+            int procesados = recomendacionAmigos.recomendarATodos(new java.io.File(archivo), 5, 4.0);
+            System.out.println("Recomendaciones de " + procesados + " usuarios escritas en " + archivo +
+                    " (" + (System.currentTimeMillis() - inicio) + " ms)");
+        } catch (java.io.IOException e) {
+            System.err.println("Error al escribir recomendaciones: " + e.getMessage());
+        }
+    }
+
     private static void ejecutarRutasInfluencia() {
         System.out.println("\n╔════════════════════════════════════════════════════════╗");
-        System.out.println("║  RUTAS DE INFLUENCIA - Backtracking con Poda           ║");
+        System.out.println("║  RUTAS DE INFLUENCIA - Ramificación y Poda             ║");
         System.out.println("╚════════════════════════════════════════════════════════╝");
 
         if (servicioUsuarios.obtenerTodosLosUsuarios().isEmpty()) {
@@ -500,21 +547,26 @@ public class App {
             return;
         }
 
-        Map<String, List<String>> grafo = servicioUsuarios.obtenerGrafoAmistades();
-        
-        // crear instancia de RutasInfluencia 
-        algoritmos.RutasInfluencia rutasInfluencia = new algoritmos.RutasInfluencia();
-        for (Map.Entry<String, List<String>> entry : grafo.entrySet()) {
-            for (String destUsuario : entry.getValue()) {
-                rutasInfluencia.agregarConexion(entry.getKey(), destUsuario);
-            }
-        }
+        // crear instancia de RutasInfluencia sobre el grafo compacto de amistades
+        algoritmos.RutasInfluencia rutasInfluencia = new algoritmos.RutasInfluencia(
+                servicioUsuarios.obtenerGrafoCompacto());
         
+        System.out.println("\n1. Cadena más efectiva (ramificación y poda)");
+        System.out.println("2. Cadena más efectiva entre las más cortas (búsqueda bidireccional)");
+        System.out.print("Seleccione modo: ");
+        algoritmos.RutasInfluencia.Estrategia estrategia = scanner.nextLine().trim().equals("2")
+                ? algoritmos.RutasInfluencia.Estrategia.BIDIRECCIONAL
+                : algoritmos.RutasInfluencia.Estrategia.RAMIFICACION_Y_PODA;
+
         // cadena mas efectiva
-        List<String> ruta = rutasInfluencia.buscarCadenas(origen, destino);
+        List<String> ruta = rutasInfluencia.buscarCadenas(origen, destino, estrategia);
 
         Map<String, String> nombres = obtenerMapaNombres();
         algoritmos.RutasInfluencia.mostrarRuta(ruta, nombres);
+        if (ruta != null && !rutasInfluencia.esOptima()) {
+            System.out.println("(búsqueda cortada por sus límites: es la mejor ruta encontrada, " +
+                    "puede existir una más efectiva)");
+        }
     }
 
     private static void ejecutarVisualizacionPublicaciones() {
@@ -524,30 +576,61 @@ public class App {
 
         System.out.println("\n1. Vista Cronológica");
         System.out.println("2. Vista por Relevancia (Heap)");
+        System.out.println("3. Feed de amigos de un usuario");
         System.out.print("Seleccione vista: ");
 
         int opcion = leerOpcion();
 
         switch (opcion) {
             case 1:
-                gestionPublicaciones.mostrarVistaCronologica();
+                // de a una página: se piden más solo si el usuario quiere seguir
+                String cursor = null;
+                do {
+                    cursor = gestionPublicaciones.mostrarPaginaCronologica(cursor, PUBLICACIONES_POR_PAGINA);
+                    if (cursor != null) {
+                        System.out.print("¿Ver más? (s/n): ");
+                    }
+                } while (cursor != null && scanner.nextLine().trim().equalsIgnoreCase("s"));
                 break;
             case 2:
                 System.out.print("¿Cuántas publicaciones mostrar?: ");
                 int top = leerEntero();
                 gestionPublicaciones.mostrarVistaPorRelevancia(top);
                 break;
+            case 3:
+                mostrarFeedAmigos();
+                break;
             default:
                 System.out.println("Opción inválida.");
         }
     }
+
+    private static void mostrarFeedAmigos() {
+        servicioUsuarios.listarUsuarios();
+        System.out.print("\nID del usuario: ");
+        String usuarioId = scanner.nextLine();
+        System.out.print("Orden (1 = cronológico, 2 = relevancia): ");
+        ServicioPublicaciones.OrdenFeed orden = leerOpcion() == 2
+                ? ServicioPublicaciones.OrdenFeed.RELEVANCIA
+                : ServicioPublicaciones.OrdenFeed.CRONOLOGICO;
+
+        String cursor = null;
+        do {
+            cursor = feedAmigos.mostrarFeed(usuarioId, orden, cursor, PUBLICACIONES_POR_PAGINA);
+            if (cursor != null) {
+                System.out.print("¿Ver más? (s/n): ");
+            }
+        } while (cursor != null && scanner.nextLine().trim().equalsIgnoreCase("s"));
+    }
+
     // ==================== UTILIDADES ====================
 
     private static void guardarTodosDatos() {
         System.out.println("\nGuardando todos los datos...");
-        servicioUsuarios.guardarUsuarios();
-        servicioPublicaciones.guardarPublicaciones();
-        servicioAnuncios.guardarAnuncios();
+        // solo lo que cambió; las instantáneas completas se reescriben al compactar
+        servicioUsuarios.guardarCambiosUsuarios();
+        servicioPublicaciones.guardarCambiosPublicaciones();
+        servicioAnuncios.guardarCambiosAnuncios();
         System.out.println("Datos guardados correctamente.");
     }
 
@@ -588,6 +671,7 @@ public class App {
         System.out.println("║  Guardando datos y cerrando el sistema...                ║");
         System.out.println("╚══════════════════════════════════════════════════════════╝");
         guardarTodosDatos();
+        servicioInteracciones.cerrar();
         System.out.println("\n¡Hasta pronto!\n");
     }
 }
@@ -15,50 +15,53 @@ public class AsignacionPublicidad {
          * recibe una lista de anuncios y un presupuesto
          * retorna un objeto ResultadoAsignacion que contiene el máximo alcance posible
          * y la lista de anuncios seleccionados
+         * la estrategia la elige MotorMochila según anuncios x presupuesto
          */
-        int n = anuncios.size();
-        int[][] dp = new int[n + 1][presupuesto + 1];
+        return maxAlcance(anuncios, presupuesto, MotorMochila.Estrategia.AUTOMATICA);
+    }
 
-        // Llenar la tabla 
-        for (int i = 1; i <= n; i++) {
-            Anuncio anuncio = anuncios.get(i - 1);
-            for (int j = 0; j <= presupuesto; j++) {
-                if (anuncio.getCosto() <= j) {
-                    dp[i][j] = Math.max(
-                            anuncio.getAlcance() + dp[i - 1][j - anuncio.getCosto()],
-                            dp[i - 1][j]);
-                } else {
-                    dp[i][j] = dp[i - 1][j];
-                }
-            }
+    /**
+     * Misma mochila 0/1 pero sin la tabla completa: un solo arreglo
+     * int[presupuesto+1] y las decisiones en un bitset (o Hirschberg si ni el
+     * bitset entra). Ver MotorMochila.
+     */
+    public static ResultadoAsignacion maxAlcanceCompacto(List<Anuncio> anuncios, int presupuesto) {
+        return maxAlcance(anuncios, presupuesto, MotorMochila.Estrategia.VECTOR_UNICO);
+    }
+
+    public static ResultadoAsignacion maxAlcance(List<Anuncio> anuncios, int presupuesto,
+            MotorMochila.Estrategia estrategia) {
+        int n = anuncios.size();
+        int[] costos = new int[n];
+        int[] alcances = new int[n];
+        for (int i = 0; i < n; i++) {
+            costos[i] = anuncios.get(i).getCosto();
+            alcances[i] = anuncios.get(i).getAlcance();
         }
 
-        // reconstruir la solución
-        List<Anuncio> seleccionados = new ArrayList<>();
-        int alcanceMaximo = dp[n][presupuesto];
-        int w = presupuesto;
+        MotorMochila.ResultadoMochila resultado = MotorMochila.resolver(costos, alcances, presupuesto, estrategia);
 
-        for (int i = n; i > 0 && alcanceMaximo > 0; i--) {
-            if (alcanceMaximo != dp[i - 1][w]) {
-                Anuncio anuncio = anuncios.get(i - 1);
-                seleccionados.add(anuncio);
-                alcanceMaximo -= anuncio.getAlcance();
-                w -= anuncio.getCosto();
+        List<Anuncio> seleccionados = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (resultado.estaSeleccionado(i)) {
+                seleccionados.add(anuncios.get(i));
             }
         }
-
-        Collections.reverse(seleccionados);
-        return new ResultadoAsignacion(dp[n][presupuesto], seleccionados);
+        return new ResultadoAsignacion(resultado.getValorMaximo(), seleccionados, resultado.getEstrategia());
     }
 
     //clase para guardar el resultado de el algortimo principal
     public static class ResultadoAsignacion {
         private int alcanceMaximo;
         private List<Anuncio> anunciosSeleccionados;
+        // estrategia con la que se resolvió (AUTOMATICA puede terminar en VORAZ con presupuestos enormes)
+        private MotorMochila.Estrategia estrategia;
 
-        public ResultadoAsignacion(int alcanceMaximo, List<Anuncio> anunciosSeleccionados) {
+        public ResultadoAsignacion(int alcanceMaximo, List<Anuncio> anunciosSeleccionados,
+                MotorMochila.Estrategia estrategia) {
             this.alcanceMaximo = alcanceMaximo;
             this.anunciosSeleccionados = anunciosSeleccionados;
+            this.estrategia = estrategia;
         }
 
         public int getAlcanceMaximo() {
@@ -69,11 +72,23 @@ public class AsignacionPublicidad {
             return anunciosSeleccionados;
         }
 
+        public MotorMochila.Estrategia getEstrategia() {
+            return estrategia;
+        }
+
+        // false si el alcance es una aproximación y puede no ser el máximo
+        public boolean esExacto() {
+            return estrategia != MotorMochila.Estrategia.VORAZ;
+        }
+
         public void mostrarResultado(int presupuesto) {
             System.out.println("\nRESULTADO DE ASIGNACIÓN DE PUBLICIDAD");
             System.out.println("═══════════════════════════════════════════════");
             System.out.println("Presupuesto disponible: $" + presupuesto);
             System.out.println("Alcance máximo obtenido: " + alcanceMaximo + " usuarios");
+            if (!esExacto()) {
+                System.out.println("(aproximación " + estrategia + ": el alcance puede no ser el máximo posible)");
+            }
             System.out.println("\nAnuncios seleccionados:");
 
             int costoTotal = 0;
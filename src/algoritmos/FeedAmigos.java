@@ -0,0 +1,65 @@
+package algoritmos;
+
+import modelo.PublicacionModelo;
+import modelo.Usuario;
+import servicio.ServicioPublicaciones;
+import servicio.ServicioPublicaciones.OrdenFeed;
+import servicio.ServicioUsuarios;
+import util.Pagina;
+import java.util.*;
+
+/**
+ * Feed de inicio de un usuario: las publicaciones de sus amigos, de a una
+ * página por vez.
+ * Cada autor tiene sus publicaciones ya ordenadas en el servicio; el feed
+ * mezcla las listas de los amigos (k-way merge) sin recorrer el resto de
+ * las publicaciones.
+ */
+public class FeedAmigos {
+    private ServicioUsuarios servicioUsuarios;
+    private ServicioPublicaciones servicioPublicaciones;
+
+    public FeedAmigos(ServicioUsuarios servicioUsuarios, ServicioPublicaciones servicioPublicaciones) {
+        this.servicioUsuarios = servicioUsuarios;
+        this.servicioPublicaciones = servicioPublicaciones;
+    }
+
+    /**
+     * Página del feed del usuario a partir del cursor (null para la primera).
+     * Si el usuario no existe o no tiene amigos, la página viene vacía.
+     */
+    public Pagina<PublicacionModelo> obtenerFeed(String usuarioId, OrdenFeed orden, String cursor, int limite) {
+        Usuario usuario = servicioUsuarios.obtenerUsuario(usuarioId);
+        if (usuario == null) {
+            return new Pagina<>(new ArrayList<>(), null);
+        }
+        return servicioPublicaciones.obtenerFeed(usuario.getAmigos(), orden, cursor, limite);
+    }
+
+    /**
+     * Muestra una página del feed y devuelve el cursor de la siguiente, o
+     * null si no hay más.
+     */
+    public String mostrarFeed(String usuarioId, OrdenFeed orden, String cursor, int limite) {
+        Pagina<PublicacionModelo> pagina = obtenerFeed(usuarioId, orden, cursor, limite);
+
+        if (cursor == null) {
+            System.out.println("\nFEED DE " + usuarioId + " ("
+                    + (orden == OrdenFeed.RELEVANCIA ? "por relevancia" : "cronológico") + ")");
+            System.out.println("═══════════════════════════════════════════════════════");
+        }
+
+        if (pagina.getElementos().isEmpty() && cursor == null) {
+            System.out.println("No hay publicaciones de amigos.");
+            return null;
+        }
+
+        for (PublicacionModelo pub : pagina.getElementos()) {
+            System.out.println(" - " + pub.getId() +
+                    " | Autor: " + pub.getAutorId() +
+                    " | Fecha: " + pub.getFecha() +
+                    " | Likes: " + pub.getLikes());
+        }
+        return pagina.getSiguienteCursor();
+    }
+}
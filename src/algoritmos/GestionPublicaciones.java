@@ -2,6 +2,7 @@ package algoritmos;
 
 import modelo.PublicacionModelo;
 import servicio.ServicioPublicaciones;
+import util.Pagina;
 import java.util.*;
 
 /**
@@ -38,10 +39,36 @@ public class GestionPublicaciones {
     }
 
     /**
-     * Muestra las publicaciones más relevantes usando un heap (cola de prioridad).
+     * Muestra una página de la vista cronológica a partir del cursor (null
+     * para la primera) y devuelve el cursor de la siguiente, o null si no hay más.
+     */
+    public String mostrarPaginaCronologica(String cursor, int limite) {
+        Pagina<PublicacionModelo> pagina = servicioPublicaciones.obtenerPaginaCronologica(cursor, limite);
+
+        if (cursor == null) {
+            System.out.println("\nVISTA CRONOLOGICA DE PUBLICACIONES");
+            System.out.println("═══════════════════════════════════════════════════════");
+        }
+
+        if (pagina.getElementos().isEmpty() && cursor == null) {
+            System.out.println("No hay publicaciones disponibles.");
+            return null;
+        }
+
+        for (PublicacionModelo pub : pagina.getElementos()) {
+            System.out.println(" - " + pub.getId() +
+                    " | Fecha: " + pub.getFecha() +
+                    " | Likes: " + pub.getLikes());
+        }
+        return pagina.getSiguienteCursor();
+    }
+
+    /**
+     * Muestra las publicaciones más relevantes leyendo el ranking que el
+     * servicio mantiene ordenado (no recalcula ni reordena nada).
      */
     public void mostrarVistaPorRelevancia(int top) {
-        List<PublicacionModelo> topRelevantes = servicioPublicaciones.obtenerTopPorRelevancia(top);
+        List<PublicacionModelo> topRelevantes = servicioPublicaciones.obtenerRankingRelevancia(top);
 
         System.out.println("\nTOP " + top + " PUBLICACIONES POR RELEVANCIA");
         System.out.println("═══════════════════════════════════════════════════════");
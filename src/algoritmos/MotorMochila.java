@@ -0,0 +1,536 @@
+package algoritmos;
+
+import util.Metricas;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Motor de la mochila 0/1 compartido por Optimización de Portada y
+ * Asignación de Publicidad.
+ * Paradigma: Programación Dinámica (y alternativas para instancias grandes)
+ * Objetivo: elegir elementos que maximicen el valor total sin pasar la capacidad.
+ *
+ * Trabaja sobre arreglos primitivos de pesos y valores; cada módulo convierte
+ * sus modelos a arreglos y traduce la selección de vuelta. Estrategias:
+ * - TABLA_COMPLETA: la tabla (n+1) x (capacidad+1) clásica
+ * - VECTOR_UNICO: un solo arreglo + bitset de decisiones (o Hirschberg si no entra)
+ * - VECTOR_PARALELO: lo mismo pero cada fila se reparte entre los núcleos
+ * - RAMIFICACION_Y_PODA: búsqueda exacta con la cota fraccionaria, no depende de la capacidad
+ * - VORAZ: aproximación por valor/peso, garantiza al menos la mitad del óptimo
+ */
+public class MotorMochila {
+    // hasta este tamaño se usa la tabla completa de int
+    private static final long MAXIMO_CELDAS_TABLA = 1L << 22;
+    // hasta este tamaño se guardan las decisiones en un bitset; si no, Hirschberg
+    private static final long MAXIMO_BITS_DECISIONES = 1L << 28;
+    // por encima de este n x capacidad la programación dinámica es demasiado lenta
+    private static final long MAXIMO_OPERACIONES_DP = 1L << 32;
+    // ramificación y poda solo para pocos elementos (el peor caso es exponencial)
+    private static final int MAXIMO_ELEMENTOS_RAMIFICACION = 64;
+    // por debajo de esta capacidad repartir una fila entre hilos cuesta más de lo que ahorra
+    private static final int MINIMO_CAPACIDAD_PARALELA = 1 << 16;
+
+    private static final Metricas.Histograma LATENCIA = Metricas.histograma("mochila.resolver.ns");
+    private static final Metricas.Histograma ELEMENTOS = Metricas.histograma("mochila.elementos");
+    private static final Metricas.Histograma CAPACIDAD = Metricas.histograma("mochila.capacidad");
+    // resoluciones por estrategia efectiva (AUTOMATICA siempre se traduce a otra)
+    private static final Map<Estrategia, Metricas.Contador> RESOLUCIONES = contadoresPorEstrategia();
+
+    public enum Estrategia {
+        AUTOMATICA,
+        TABLA_COMPLETA,
+        VECTOR_UNICO,
+        VECTOR_PARALELO,
+        RAMIFICACION_Y_PODA,
+        VORAZ
+    }
+
+    public static ResultadoMochila resolver(int[] pesos, int[] valores, int capacidad) {
+        return resolver(pesos, valores, capacidad, Estrategia.AUTOMATICA);
+    }
+
+    /**
+     * Resuelve la mochila con la estrategia indicada. Los elementos con peso
+     * negativo o valor no positivo nunca se eligen.
+     */
+    public static ResultadoMochila resolver(int[] pesos, int[] valores, int capacidad, Estrategia estrategia) {
+        long inicio = System.nanoTime();
+        int n = pesos.length;
+        capacidad = Math.max(0, capacidad);
+        if (estrategia == Estrategia.AUTOMATICA) {
+            estrategia = elegirEstrategia(n, capacidad);
+        }
+
+        // elegirEstrategia ya tiene en cuenta los núcleos; pedida a mano, solo se descarta si la capacidad es chica
+        if (estrategia == Estrategia.VECTOR_PARALELO && capacidad < MINIMO_CAPACIDAD_PARALELA) {
+            estrategia = Estrategia.VECTOR_UNICO;
+        }
+
+        boolean[] seleccion = new boolean[n];
+        switch (estrategia) {
+            case TABLA_COMPLETA:
+                resolverTablaCompleta(pesos, valores, capacidad, seleccion);
+                break;
+            case VECTOR_UNICO:
+                if ((long) n * (capacidad + 1) <= MAXIMO_BITS_DECISIONES) {
+                    resolverConBitset(pesos, valores, capacidad, seleccion);
+                } else {
+                    resolverHirschberg(pesos, valores, 0, n, capacidad, seleccion, null);
+                }
+                break;
+            case VECTOR_PARALELO:
+                resolverParalelo(pesos, valores, capacidad, seleccion);
+                break;
+            case RAMIFICACION_Y_PODA:
+                new RamificacionYPoda(pesos, valores, capacidad).resolver(seleccion);
+                break;
+            case VORAZ:
+                resolverVoraz(pesos, valores, capacidad, seleccion);
+                break;
+            default:
+                throw new IllegalArgumentException("Estrategia no soportada: " + estrategia);
+        }
+
+        int valorMaximo = 0;
+        for (int i = 0; i < n; i++) {
+            if (seleccion[i]) {
+                valorMaximo += valores[i];
+            }
+        }
+
+        LATENCIA.registrarDesde(inicio);
+        ELEMENTOS.registrar(n);
+        CAPACIDAD.registrar(capacidad);
+        RESOLUCIONES.get(estrategia).incrementar();
+        return new ResultadoMochila(valorMaximo, seleccion, estrategia);
+    }
+
+    private static Map<Estrategia, Metricas.Contador> contadoresPorEstrategia() {
+        Map<Estrategia, Metricas.Contador> contadores = new EnumMap<>(Estrategia.class);
+        for (Estrategia estrategia : Estrategia.values()) {
+            if (estrategia != Estrategia.AUTOMATICA) {
+                contadores.put(estrategia, Metricas.contador("mochila.estrategia." + estrategia));
+            }
+        }
+        return contadores;
+    }
+
+    /**
+     * Elige la estrategia según n x capacidad: tabla completa si es chica,
+     * un solo arreglo si la DP todavía es viable (en paralelo si la capacidad
+     * es grande y hay varios núcleos), y si no ramificación y poda (pocos
+     * elementos) o la aproximación voraz.
+     */
+    public static Estrategia elegirEstrategia(int n, int capacidad) {
+        long celdas = (long) (n + 1) * (capacidad + 1);
+        if (celdas <= MAXIMO_CELDAS_TABLA) {
+            return Estrategia.TABLA_COMPLETA;
+        }
+        long operaciones = (long) n * (capacidad + 1);
+        int nucleos = nucleos();
+        if (capacidad >= MINIMO_CAPACIDAD_PARALELA && nucleos > 1
+                && operaciones <= MAXIMO_OPERACIONES_DP * nucleos) {
+            return Estrategia.VECTOR_PARALELO;
+        }
+        if (operaciones <= MAXIMO_OPERACIONES_DP) {
+            return Estrategia.VECTOR_UNICO;
+        }
+        if (n <= MAXIMO_ELEMENTOS_RAMIFICACION) {
+            return Estrategia.RAMIFICACION_Y_PODA;
+        }
+        return Estrategia.VORAZ;
+    }
+
+    // ==================== TABLA COMPLETA ====================
+
+    private static void resolverTablaCompleta(int[] pesos, int[] valores, int capacidad, boolean[] seleccion) {
+        int n = pesos.length;
+        int[][] tabla = new int[n + 1][capacidad + 1];
+
+        // rellenar la tabla
+        for (int i = 1; i <= n; i++) {
+            int peso = pesos[i - 1];
+            int valor = valores[i - 1];
+
+            for (int j = 0; j <= capacidad; j++) {
+                if (peso >= 0 && peso <= j) {
+                    // Elegir el máximo entre tomar o no tomar el elemento
+                    tabla[i][j] = Math.max(tabla[i - 1][j], valor + tabla[i - 1][j - peso]);
+                } else {
+                    tabla[i][j] = tabla[i - 1][j];
+                }
+            }
+        }
+
+        // Reconstrucción de la solución
+        int w = capacidad;
+        for (int i = n; i > 0; i--) {
+            if (tabla[i][w] != tabla[i - 1][w]) {
+                seleccion[i - 1] = true;
+                w -= pesos[i - 1];
+            }
+        }
+    }
+
+    // ==================== VECTOR ÚNICO ====================
+
+    /**
+     * El valor se calcula con un solo arreglo int[capacidad+1] recorrido de
+     * derecha a izquierda; para reconstruir se guarda solo la decisión
+     * tomar/no tomar de cada celda (1 bit en vez de 32).
+     */
+    private static void resolverConBitset(int[] pesos, int[] valores, int capacidad, boolean[] seleccion) {
+        int n = pesos.length;
+        long ancho = capacidad + 1L;
+        long[] decisiones = new long[(int) ((n * ancho + 63) >>> 6)];
+        int[] dp = new int[capacidad + 1];
+
+        for (int i = 0; i < n; i++) {
+            int peso = pesos[i];
+            int valor = valores[i];
+            long base = i * ancho;
+            if (peso < 0) {
+                continue;
+            }
+            // de derecha a izquierda: dp[j - peso] todavía tiene el valor de la fila anterior
+            for (int j = capacidad; j >= peso; j--) {
+                int conElemento = valor + dp[j - peso];
+                if (conElemento > dp[j]) {
+                    dp[j] = conElemento;
+                    long bit = base + j;
+                    decisiones[(int) (bit >>> 6)] |= 1L << bit;
+                }
+            }
+        }
+
+        reconstruir(decisiones, pesos, capacidad, seleccion);
+    }
+
+    // reconstruir la solución siguiendo las decisiones desde el último elemento
+    private static void reconstruir(long[] decisiones, int[] pesos, int capacidad, boolean[] seleccion) {
+        long ancho = capacidad + 1L;
+        int w = capacidad;
+        for (int i = pesos.length - 1; i >= 0; i--) {
+            long bit = i * ancho + w;
+            if ((decisiones[(int) (bit >>> 6)] & (1L << bit)) != 0) {
+                seleccion[i] = true;
+                w -= pesos[i];
+            }
+        }
+    }
+
+    /**
+     * Divide los elementos [desde, hasta) en dos mitades, calcula el mejor
+     * valor de cada mitad para todas las capacidades y elige cómo repartir la
+     * capacidad entre ambas; después resuelve cada mitad por separado.
+     * Memoria O(capacidad) a cambio de aproximadamente el doble de tiempo.
+     * Con un pool, las filas de capacidad grande se calculan en paralelo.
+     */
+    private static void resolverHirschberg(int[] pesos, int[] valores, int desde, int hasta, int capacidad,
+            boolean[] seleccion, ForkJoinPool pool) {
+        if (hasta - desde == 1) {
+            seleccion[desde] = pesos[desde] >= 0 && pesos[desde] <= capacidad && valores[desde] > 0;
+            return;
+        }
+        if (hasta <= desde) {
+            return;
+        }
+
+        int medio = (desde + hasta) >>> 1;
+        if (capacidad < MINIMO_CAPACIDAD_PARALELA) {
+            pool = null;
+        }
+        int[] izquierda = mejoresValores(pesos, valores, desde, medio, capacidad, pool);
+        int[] derecha = mejoresValores(pesos, valores, medio, hasta, capacidad, pool);
+
+        int mejorReparto = 0;
+        int mejorValor = izquierda[0] + derecha[capacidad];
+        for (int c = 1; c <= capacidad; c++) {
+            if (izquierda[c] + derecha[capacidad - c] > mejorValor) {
+                mejorValor = izquierda[c] + derecha[capacidad - c];
+                mejorReparto = c;
+            }
+        }
+        // liberar las filas antes de bajar en la recursión: la memoria queda en O(capacidad)
+        izquierda = null;
+        derecha = null;
+
+        resolverHirschberg(pesos, valores, desde, medio, mejorReparto, seleccion, pool);
+        resolverHirschberg(pesos, valores, medio, hasta, capacidad - mejorReparto, seleccion, pool);
+    }
+
+    // fila final de la mochila para los elementos [desde, hasta), con un solo arreglo
+    private static int[] mejoresValores(int[] pesos, int[] valores, int desde, int hasta, int capacidad,
+            ForkJoinPool pool) {
+        if (pool != null) {
+            return mejoresValoresParalelo(pesos, valores, desde, hasta, capacidad, pool);
+        }
+        int[] dp = new int[capacidad + 1];
+        for (int i = desde; i < hasta; i++) {
+            int peso = pesos[i];
+            int valor = valores[i];
+            if (peso < 0) {
+                continue;
+            }
+            for (int j = capacidad; j >= peso; j--) {
+                dp[j] = Math.max(dp[j], valor + dp[j - peso]);
+            }
+        }
+        return dp;
+    }
+
+    // ==================== VECTOR PARALELO ====================
+
+    /**
+     * Cada fila i solo lee la fila i-1, así que el rango de capacidades de una
+     * fila se reparte entre los hilos de un ForkJoinPool. En lugar de un único
+     * arreglo recorrido de derecha a izquierda se alternan dos (anterior y
+     * actual); las decisiones van al mismo bitset que en VECTOR_UNICO, con los
+     * tramos alineados a 64 bits para que dos hilos nunca escriban el mismo
+     * long. El resultado es idéntico al de VECTOR_UNICO. Usa el pool común,
+     * así que no se crean hilos por llamada.
+     */
+    private static void resolverParalelo(int[] pesos, int[] valores, int capacidad, boolean[] seleccion) {
+        int n = pesos.length;
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        if ((long) n * (capacidad + 1) > MAXIMO_BITS_DECISIONES) {
+            resolverHirschberg(pesos, valores, 0, n, capacidad, seleccion, pool);
+            return;
+        }
+
+        long ancho = capacidad + 1L;
+        long[] decisiones = new long[(int) ((n * ancho + 63) >>> 6)];
+        int[] anterior = new int[capacidad + 1];
+        int[] actual = new int[capacidad + 1];
+        for (int i = 0; i < n; i++) {
+            if (pesos[i] < 0) {
+                continue;
+            }
+            pool.invoke(new TareaFila(anterior, actual, pesos[i], valores[i], decisiones, i * ancho,
+                    0, capacidad + 1));
+            int[] auxiliar = anterior;
+            anterior = actual;
+            actual = auxiliar;
+        }
+        reconstruir(decisiones, pesos, capacidad, seleccion);
+    }
+
+    private static int[] mejoresValoresParalelo(int[] pesos, int[] valores, int desde, int hasta, int capacidad,
+            ForkJoinPool pool) {
+        int[] anterior = new int[capacidad + 1];
+        int[] actual = new int[capacidad + 1];
+        for (int i = desde; i < hasta; i++) {
+            if (pesos[i] < 0) {
+                continue;
+            }
+            pool.invoke(new TareaFila(anterior, actual, pesos[i], valores[i], null, 0, 0, capacidad + 1));
+            int[] auxiliar = anterior;
+            anterior = actual;
+            actual = auxiliar;
+        }
+        return anterior;
+    }
+
+    /**
+     * Calcula las capacidades [desde, hasta) de una fila a partir de la
+     * anterior, dividiendo el rango entre los hilos del pool.
+     */
+    private static class TareaFila extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int UMBRAL = 1 << 13;
+
+        private final int[] anterior;
+        private final int[] actual;
+        private final int peso;
+        private final int valor;
+        private final long[] decisiones; // null si no hace falta reconstruir
+        private final long base;         // bit de la capacidad 0 de esta fila
+        private final int desde;
+        private final int hasta;
+
+        TareaFila(int[] anterior, int[] actual, int peso, int valor, long[] decisiones, long base, int desde,
+                int hasta) {
+            this.anterior = anterior;
+            this.actual = actual;
+            this.peso = peso;
+            this.valor = valor;
+            this.decisiones = decisiones;
+            this.base = base;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde <= UMBRAL) {
+                calcular();
+                return;
+            }
+            // corte en un múltiplo de 64 del bitset: cada long queda en un solo tramo
+            int medio = (int) (((base + ((desde + hasta) >>> 1)) & ~63L) - base);
+            invokeAll(new TareaFila(anterior, actual, peso, valor, decisiones, base, desde, medio),
+                    new TareaFila(anterior, actual, peso, valor, decisiones, base, medio, hasta));
+        }
+
+        private void calcular() {
+            int limite = Math.min(Math.max(peso, desde), hasta);
+            System.arraycopy(anterior, desde, actual, desde, limite - desde);
+            for (int j = limite; j < hasta; j++) {
+                int conElemento = valor + anterior[j - peso];
+                if (conElemento > anterior[j]) {
+                    actual[j] = conElemento;
+                    if (decisiones != null) {
+                        long bit = base + j;
+                        decisiones[(int) (bit >>> 6)] |= 1L << bit;
+                    }
+                } else {
+                    actual[j] = anterior[j];
+                }
+            }
+        }
+    }
+
+    private static int nucleos() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    // ==================== RAMIFICACIÓN Y PODA ====================
+
+    /**
+     * Búsqueda en profundidad sobre los elementos ordenados por valor/peso.
+     * La cota de cada rama es la mochila fraccionaria (Dantzig) del resto: si
+     * ni llenando la capacidad con fracciones se supera la mejor solución, se
+     * poda. El costo no depende de la capacidad.
+     */
+    private static class RamificacionYPoda {
+        private final int[] orden; // índices de elementos útiles ordenados por valor/peso
+        private final int[] pesos;
+        private final int[] valores;
+        private final int capacidad;
+        private final boolean[] actual;
+        private boolean[] mejor;
+        private long mejorValor;
+
+        RamificacionYPoda(int[] pesos, int[] valores, int capacidad) {
+            this.pesos = pesos;
+            this.valores = valores;
+            this.capacidad = capacidad;
+            this.orden = ordenarPorRendimiento(pesos, valores, capacidad);
+            this.actual = new boolean[pesos.length];
+            this.mejor = new boolean[pesos.length];
+        }
+
+        void resolver(boolean[] seleccion) {
+            ramificar(0, capacidad, 0);
+            System.arraycopy(mejor, 0, seleccion, 0, seleccion.length);
+        }
+
+        private void ramificar(int k, long capacidadRestante, long valorActual) {
+            if (valorActual > mejorValor) {
+                mejorValor = valorActual;
+                mejor = actual.clone();
+            }
+            if (k == orden.length || cota(k, capacidadRestante, valorActual) <= mejorValor) {
+                return;
+            }
+
+            int elemento = orden[k];
+            if (pesos[elemento] <= capacidadRestante) {
+                actual[elemento] = true;
+                ramificar(k + 1, capacidadRestante - pesos[elemento], valorActual + valores[elemento]);
+                actual[elemento] = false;
+            }
+            ramificar(k + 1, capacidadRestante, valorActual);
+        }
+
+        private double cota(int k, long capacidadRestante, long valorActual) {
+            double cota = valorActual;
+            for (int i = k; i < orden.length; i++) {
+                int elemento = orden[i];
+                if (pesos[elemento] <= capacidadRestante) {
+                    capacidadRestante -= pesos[elemento];
+                    cota += valores[elemento];
+                } else {
+                    return cota + (double) valores[elemento] * capacidadRestante / pesos[elemento];
+                }
+            }
+            return cota;
+        }
+    }
+
+    // ==================== VORAZ ====================
+
+    /**
+     * Toma elementos por mayor valor/peso mientras entren y compara con el
+     * mejor elemento suelto; el mejor de los dos vale al menos la mitad del
+     * óptimo.
+     */
+    private static void resolverVoraz(int[] pesos, int[] valores, int capacidad, boolean[] seleccion) {
+        long restante = capacidad;
+        long valorVoraz = 0;
+        for (int elemento : ordenarPorRendimiento(pesos, valores, capacidad)) {
+            if (pesos[elemento] <= restante) {
+                seleccion[elemento] = true;
+                restante -= pesos[elemento];
+                valorVoraz += valores[elemento];
+            }
+        }
+
+        int mejorSuelto = -1;
+        for (int i = 0; i < pesos.length; i++) {
+            if (pesos[i] >= 0 && pesos[i] <= capacidad && valores[i] > 0
+                    && (mejorSuelto < 0 || valores[i] > valores[mejorSuelto])) {
+                mejorSuelto = i;
+            }
+        }
+        if (mejorSuelto >= 0 && valores[mejorSuelto] > valorVoraz) {
+            Arrays.fill(seleccion, false);
+            seleccion[mejorSuelto] = true;
+        }
+    }
+
+    /**
+     * Índices de los elementos que pueden aportar (entran solos y tienen valor
+     * positivo), de mayor a menor valor/peso; los de peso 0 van primero.
+     */
+    private static int[] ordenarPorRendimiento(int[] pesos, int[] valores, int capacidad) {
+        List<Integer> utiles = new ArrayList<>();
+        for (int i = 0; i < pesos.length; i++) {
+            if (pesos[i] >= 0 && pesos[i] <= capacidad && valores[i] > 0) {
+                utiles.add(i);
+            }
+        }
+        // a/b > c/d  <=>  a*d > c*b (pesos no negativos), sin divisiones por cero
+        utiles.sort((i, j) -> Long.compare((long) valores[j] * pesos[i], (long) valores[i] * pesos[j]));
+        return utiles.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * clase para guardar el resultado del motor: valor máximo, qué elementos
+     * se eligieron (en el orden de entrada) y con qué estrategia.
+     */
+    public static class ResultadoMochila {
+        private int valorMaximo;
+        private boolean[] seleccion;
+        private Estrategia estrategia;
+
+        public ResultadoMochila(int valorMaximo, boolean[] seleccion, Estrategia estrategia) {
+            this.valorMaximo = valorMaximo;
+            this.seleccion = seleccion;
+            this.estrategia = estrategia;
+        }
+
+        public int getValorMaximo() { return valorMaximo; }
+        public Estrategia getEstrategia() { return estrategia; }
+
+        public boolean estaSeleccionado(int elemento) {
+            return seleccion[elemento];
+        }
+
+        // VORAZ es una aproximación; el resto da el óptimo
+        public boolean esExacto() {
+            return estrategia != Estrategia.VORAZ;
+        }
+    }
+}
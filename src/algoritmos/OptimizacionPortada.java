@@ -17,44 +17,35 @@ public class OptimizacionPortada {
          * recibe una lista de publicaciones y el espacio máximo disponible
          * retorna el beneficio máximo y publicaciones seleccionadas
          */
-        
+        return optimizar(publicaciones, espacioMaximo, MotorMochila.Estrategia.AUTOMATICA);
+    }
+
+    /**
+     * Igual que optimizar pero forzando una estrategia de MotorMochila (por
+     * ejemplo VORAZ para una portada enorme donde alcanza con una aproximación).
+     */
+    public static ResultadoOptimizacion optimizar(List<PublicacionModelo> publicaciones, int espacioMaximo,
+            MotorMochila.Estrategia estrategia) {
         //cantidad de publicaciones
         int n = publicaciones.size();
-        
-        int[][] tabla = new int[n + 1][espacioMaximo + 1];
-        
-        // rellenar la tabla
-        for (int i = 1; i <= n; i++) {
-            PublicacionModelo pub = publicaciones.get(i - 1);
-            int tamano = pub.getTamano();
-            int beneficio = pub.getBeneficio();
-            
-            for (int j = 1; j <= espacioMaximo; j++) {
-                if (tamano <= j) {
-                    // Elegir el máximo entre tomar o no tomar la publicación
-                    tabla[i][j] = Math.max(tabla[i - 1][j], beneficio + tabla[i - 1][j - tamano]);
-                } else {
-                    tabla[i][j] = tabla[i - 1][j];
-                }
-            }
+        int[] tamanos = new int[n];
+        int[] beneficios = new int[n];
+        for (int i = 0; i < n; i++) {
+            tamanos[i] = publicaciones.get(i).getTamano();
+            beneficios[i] = publicaciones.get(i).getBeneficio();
         }
-        
-        // Reconstrucción de la solución
-        int beneficioMaximo = tabla[n][espacioMaximo];
-        int w = espacioMaximo;
+
+        MotorMochila.ResultadoMochila resultado =
+                MotorMochila.resolver(tamanos, beneficios, espacioMaximo, estrategia);
+
         List<PublicacionModelo> seleccionadas = new ArrayList<>();
-        
-        for (int i = n; i > 0 && beneficioMaximo > 0; i--) {
-            if (beneficioMaximo != tabla[i - 1][w]) {
-                PublicacionModelo pub = publicaciones.get(i - 1);
-                seleccionadas.add(pub);
-                beneficioMaximo -= pub.getBeneficio();
-                w -= pub.getTamano();
+        for (int i = 0; i < n; i++) {
+            if (resultado.estaSeleccionado(i)) {
+                seleccionadas.add(publicaciones.get(i));
             }
         }
-        
-        Collections.reverse(seleccionadas);
-        return new ResultadoOptimizacion(tabla[n][espacioMaximo], seleccionadas, espacioMaximo);
+        return new ResultadoOptimizacion(resultado.getValorMaximo(), seleccionadas, espacioMaximo,
+                resultado.getEstrategia());
     }
     
     /**
@@ -64,21 +55,31 @@ public class OptimizacionPortada {
         private int beneficioMaximo;
         private List<PublicacionModelo> publicacionesSeleccionadas;
         private int espacioMaximo;
+        // estrategia con la que se resolvió (AUTOMATICA puede terminar en VORAZ con espacios enormes)
+        private MotorMochila.Estrategia estrategia;
         
-        public ResultadoOptimizacion(int beneficioMaximo, List<PublicacionModelo> publicacionesSeleccionadas, int espacioMaximo) {
+        public ResultadoOptimizacion(int beneficioMaximo, List<PublicacionModelo> publicacionesSeleccionadas,
+                int espacioMaximo, MotorMochila.Estrategia estrategia) {
             this.beneficioMaximo = beneficioMaximo;
             this.publicacionesSeleccionadas = publicacionesSeleccionadas;
             this.espacioMaximo = espacioMaximo;
+            this.estrategia = estrategia;
         }
         
         public int getBeneficioMaximo() { return beneficioMaximo; }
         public List<PublicacionModelo> getPublicacionesSeleccionadas() { return publicacionesSeleccionadas; }
+        public MotorMochila.Estrategia getEstrategia() { return estrategia; }
+        // false si el beneficio es una aproximación y puede no ser el máximo
+        public boolean esExacto() { return estrategia != MotorMochila.Estrategia.VORAZ; }
         
         public void mostrarResultado() {
             System.out.println("\nRESULTADO DE OPTIMIZACIÓN DE PORTADA");
             System.out.println("═══════════════════════════════════════════════════");
             System.out.println("Espacio máximo disponible: " + espacioMaximo + " unidades");
             System.out.println("Beneficio máximo alcanzado: " + beneficioMaximo);
+            if (!esExacto()) {
+                System.out.println("(aproximación " + estrategia + ": el beneficio puede no ser el máximo posible)");
+            }
             System.out.println("\nPublicaciones seleccionadas para la portada:");
             
             int espacioUtilizado = 0;
@@ -1,7 +1,14 @@
 package algoritmos;
 
 import servicio.ServicioInteracciones;
+import servicio.ServicioUsuarios;
+import util.GrafoCompacto;
+import util.HeapIndexado;
+import util.Metricas;
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Problema de Recomendación de Amigos.
@@ -10,19 +17,152 @@ import java.util.*;
  * 
  * Logica:
  * - Las distancias están ponderadas por interacciones (likes)
- * - Se garantiza el camino más directo usando Dijkstra con cola de prioridad
+ * - Se garantiza el camino más directo usando Dijkstra con un heap indexado
+ *   (decrease-key, sin entradas duplicadas)
+ * - El grafo se recorre en formato compacto (GrafoCompacto): índices enteros
+ *   y arreglos primitivos en lugar de mapas de Strings
+ * 
+ * Además de los métodos estáticos, una instancia funciona como motor de
+ * recomendaciones: conserva los pesos de las aristas ya calculadas entre
+ * consultas y solo invalida las que cambian cuando se registra un like.
  */
 public class RecomendacionAmigos {
+    // valores por defecto: hasta 5 recomendaciones a distancia 4 como máximo
+    private static final int CANTIDAD_RECOMENDACIONES = 5;
+    private static final double DISTANCIA_MAXIMA = 4.0;
+
+    private static final Metricas.Histograma LATENCIA_DIJKSTRA = Metricas.histograma("recomendacion.dijkstra.ns");
+    private static final Metricas.Histograma NODOS_ASENTADOS =
+            Metricas.histograma("recomendacion.dijkstra.nodosAsentados");
+    private static final Metricas.Histograma TAMANO_GRAFO = Metricas.histograma("recomendacion.dijkstra.nodosGrafo");
+
+    private final ServicioUsuarios servicioUsuarios;
+    private final ServicioInteracciones servicioInteracciones;
+
+    // última versión del grafo usada; sus pesos se completan a medida que Dijkstra explora
+    private GrafoCompacto grafo;
+    private EspacioDijkstra espacio; // arreglos reutilizados entre consultas
+
+    public RecomendacionAmigos(ServicioUsuarios servicioUsuarios, ServicioInteracciones servicioInteracciones) {
+        this.servicioUsuarios = servicioUsuarios;
+        this.servicioInteracciones = servicioInteracciones;
+
+        servicioInteracciones.agregarObservadorLikes((usuarioId, autorId) -> invalidarUsuario(usuarioId));
+    }
+
+    /**
+     * Recomienda amigos usando el grafo compacto de ServicioUsuarios y los
+     * pesos en caché. Solo se calculan los pesos de las aristas que Dijkstra
+     * explora.
+     */
+    public List<String> recomendar(String usuarioId) {
+        return recomendar(usuarioId, CANTIDAD_RECOMENDACIONES, DISTANCIA_MAXIMA);
+    }
+
     /**
-     * clase que representa una arista
+     * Devuelve hasta k usuarios (que no sean amigos) ordenados por distancia,
+     * sin pasar de la distancia máxima. Dijkstra se corta apenas la frontera
+     * supera el radio o ya hay k candidatos asentados, así que el trabajo es
+     * proporcional al vecindario explorado y no al tamaño del grafo.
      */
-    public static class Arista {
-        String destino;
-        double peso; // cuanto menos peso tenga, mayor afinidad
+    public List<String> recomendar(String usuarioId, int k, double distanciaMaxima) {
+        GrafoCompacto grafoActual = grafoActual();
+        int origen = grafoActual.indice(usuarioId);
+        if (origen < 0 || k <= 0) {
+            return new ArrayList<>();
+        }
 
-        public Arista(String destino, double peso) {
-            this.destino = destino;
-            this.peso = peso;
+        if (espacio == null || espacio.capacidad() < grafoActual.cantidadNodos()) {
+            espacio = new EspacioDijkstra(grafoActual.cantidadNodos());
+        }
+        SeleccionTopK seleccion = new SeleccionTopK(grafoActual, espacio.distancias, origen, k);
+        dijkstra(grafoActual, origen, servicioInteracciones, distanciaMaxima, espacio, seleccion);
+        // la selección ordena con espacio.distancias: hay que vaciarla antes de limpiar
+        List<String> recomendaciones = seleccion.resultado();
+        espacio.limpiar();
+        return recomendaciones;
+    }
+
+    /**
+     * Calcula las recomendaciones de todos los usuarios y las escribe en el
+     * archivo, una línea por usuario: usuarioId,recomendado1;recomendado2;...
+     */
+    public int recomendarATodos(File salida, int k, double distanciaMaxima) throws IOException {
+        List<String> usuarios = new ArrayList<>(servicioUsuarios.obtenerTodosLosUsuarios().keySet());
+        return recomendarEnLote(usuarios, salida, k, distanciaMaxima);
+    }
+
+    /**
+     * Calcula en paralelo las recomendaciones de una lista de usuarios.
+     * 
+     * Primero se completan todos los pesos del grafo (también en paralelo);
+     * desde ahí el grafo es de solo lectura y lo comparten todos los hilos de
+     * un ForkJoinPool, cada uno con sus propios arreglos de Dijkstra. Cada
+     * tarea escribe sus líneas apenas termina, así que el orden del archivo no
+     * es el de la lista. La llamada bloquea hasta terminar; no debe haber likes
+     * ni amistades nuevas mientras corre. Devuelve la cantidad de usuarios
+     * procesados.
+     */
+    public int recomendarEnLote(List<String> usuarios, File salida, int k, double distanciaMaxima)
+            throws IOException {
+        GrafoCompacto grafoActual = grafoActual();
+        int[] origenes = usuarios.stream()
+                .mapToInt(grafoActual::indice)
+                .filter(indice -> indice >= 0)
+                .toArray();
+
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try (BufferedWriter escritor = new BufferedWriter(new FileWriter(salida))) {
+            pool.invoke(new TareaPesos(grafoActual, servicioInteracciones, 0, grafoActual.cantidadNodos()));
+
+            ThreadLocal<EspacioDijkstra> espacios = ThreadLocal.withInitial(
+                    () -> new EspacioDijkstra(grafoActual.cantidadNodos()));
+            pool.invoke(new TareaLote(grafoActual, servicioInteracciones, origenes, 0, origenes.length, k,
+                    distanciaMaxima, espacios, escritor));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+
+        return origenes.length;
+    }
+
+    /**
+     * Si hubo amistades o usuarios nuevos, ServicioUsuarios entrega otra
+     * versión del grafo; como los índices son estables se heredan los pesos
+     * ya calculados y solo quedan por calcular las aristas nuevas.
+     */
+    private GrafoCompacto grafoActual() {
+        GrafoCompacto actual = servicioUsuarios.obtenerGrafoCompacto();
+        if (actual != grafo) {
+            if (grafo != null) {
+                actual.copiarPesosDe(grafo);
+            }
+            grafo = actual;
+        }
+        return grafo;
+    }
+
+    /**
+     * Un like nuevo cambia la afinidad del usuario con cada uno de sus amigos
+     * (likes directos y gustos comunes), así que se descartan solo sus aristas
+     * en ambos sentidos.
+     */
+    private void invalidarUsuario(String usuarioId) {
+        if (grafo == null) {
+            return;
+        }
+        int usuario = grafo.indice(usuarioId);
+        if (usuario < 0) {
+            return;
+        }
+        for (int arista = grafo.inicio(usuario); arista < grafo.fin(usuario); arista++) {
+            grafo.setPeso(arista, Float.NaN);
+            int inversa = grafo.buscarArista(grafo.destino(arista), usuario);
+            if (inversa >= 0) {
+                grafo.setPeso(inversa, Float.NaN);
+            }
         }
     }
 
@@ -35,80 +175,191 @@ public class RecomendacionAmigos {
          * devuelve un mapa con las distancias mínimas desde el origen a todos los demás usuarios
          */
 
-        
         // convertir el grafo
-        Map<String, List<Arista>> grafoPonderado = construirGrafoPonderado(grafo, servicioInteracciones);
+        GrafoCompacto grafoCompacto = GrafoCompacto.desde(grafo);
+        int indiceOrigen = grafoCompacto.indice(origen);
 
-        // inicializar dijkstra
         Map<String, Double> distancias = new HashMap<>();
-        Set<String> visitados = new HashSet<>();
-        PriorityQueue<String> colaPrioridad = new PriorityQueue<>(
-                Comparator.comparing(distancias::get, Comparator.nullsLast(Double::compareTo)));
+        if (indiceOrigen < 0) {
+            for (int nodo = 0; nodo < grafoCompacto.cantidadNodos(); nodo++) {
+                distancias.put(grafoCompacto.id(nodo), Double.MAX_VALUE);
+            }
+            distancias.put(origen, 0.0);
+            return distancias;
+        }
 
-        // todas las distancias son "infinito" excepto la del origen
-        for (String nodo : grafo.keySet()) {
-            distancias.put(nodo, Double.MAX_VALUE);
+        EspacioDijkstra resultado = new EspacioDijkstra(grafoCompacto.cantidadNodos());
+        dijkstra(grafoCompacto, indiceOrigen, servicioInteracciones, Double.MAX_VALUE, resultado, null);
+        for (int nodo = 0; nodo < grafoCompacto.cantidadNodos(); nodo++) {
+            distancias.put(grafoCompacto.id(nodo), resultado.distancias[nodo]);
         }
-        distancias.put(origen, 0.0);
-        colaPrioridad.add(origen);
+        return distancias;
+    }
 
-        // algoritmo dijkstra
-        while (!colaPrioridad.isEmpty()) {
-            String actual = colaPrioridad.poll();
+    /**
+     * Dijkstra sobre el grafo compacto con un heap indexado de aridad 4: cada
+     * nodo está a lo sumo una vez en la cola y se le reduce la prioridad
+     * (decrease-key) al encontrar un camino mejor.
+     * 
+     * Se detiene cuando la menor distancia de la frontera supera la distancia
+     * máxima: todos los nodos a esa distancia o menos ya quedaron asentados.
+     * Si hay una selección top-k, también se detiene cuando ya no puede
+     * mejorarla. Los pesos que todavía no se calcularon (NaN) se calculan al
+     * relajar la arista y quedan guardados en el grafo.
+     */
+    private static void dijkstra(GrafoCompacto grafo, int origen, ServicioInteracciones servicioInteracciones,
+            double distanciaMaxima, EspacioDijkstra espacio, SeleccionTopK seleccion) {
+        long inicio = System.nanoTime();
+        int asentados = 0;
+        double[] distancias = espacio.distancias;
+        HeapIndexado colaPrioridad = espacio.cola;
+
+        espacio.asignar(origen, 0.0);
+        colaPrioridad.insertarOReducir(origen, 0.0);
 
-            if (visitados.contains(actual)) {
-                continue; // Ya procesado con distancia óptima
+        // algoritmo dijkstra
+        while (!colaPrioridad.estaVacio() && colaPrioridad.prioridadMinima() <= distanciaMaxima) {
+            if (seleccion != null && seleccion.completa(colaPrioridad.prioridadMinima())) {
+                break; // los nodos que faltan están más lejos que los k elegidos
             }
 
-            visitados.add(actual); // optimo
+            int actual = colaPrioridad.extraerMinimo(); // optimo
+            asentados++;
+            if (seleccion != null) {
+                seleccion.ofrecer(actual);
+            }
 
-            // relaxation
-            List<Arista> aristas = grafoPonderado.getOrDefault(actual, new ArrayList<>());
-            for (Arista arista : aristas) {
-                String vecino = arista.destino;
-                double nuevaDistancia = distancias.get(actual) + arista.peso;
+            // relaxation (con pesos positivos un nodo asentado nunca vuelve a mejorar)
+            for (int arista = grafo.inicio(actual); arista < grafo.fin(actual); arista++) {
+                int vecino = grafo.destino(arista);
+                double nuevaDistancia = distancias[actual] + pesoArista(grafo, actual, arista, servicioInteracciones);
 
                 // actualizar si es menor la distancia
-                if (nuevaDistancia < distancias.get(vecino)) {
-                    distancias.put(vecino, nuevaDistancia);
-                    colaPrioridad.add(vecino);
+                if (nuevaDistancia < distancias[vecino]) {
+                    espacio.asignar(vecino, nuevaDistancia);
+                    colaPrioridad.insertarOReducir(vecino, nuevaDistancia);
                 }
             }
         }
 
-        return distancias;
+        LATENCIA_DIJKSTRA.registrarDesde(inicio);
+        NODOS_ASENTADOS.registrar(asentados);
+        TAMANO_GRAFO.registrar(grafo.cantidadNodos());
     }
 
-    private static Map<String, List<Arista>> construirGrafoPonderado(Map<String, List<String>> grafo,
-            ServicioInteracciones servicioInteracciones) {
+    /**
+     * Calcula los pesos faltantes de un rango de nodos, dividiendo el rango
+     * entre los hilos del pool.
+     */
+    private static class TareaPesos extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int UMBRAL = 1024;
+
+        private final GrafoCompacto grafo;
+        private final ServicioInteracciones servicioInteracciones;
+        private final int desde;
+        private final int hasta;
+
+        TareaPesos(GrafoCompacto grafo, ServicioInteracciones servicioInteracciones, int desde, int hasta) {
+            this.grafo = grafo;
+            this.servicioInteracciones = servicioInteracciones;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
 
-        /**
-         * Se construye el grafo ponderado que se basa en las interacciones de los usuarios
-         * 
-         * FACTORES CONSIDERADOS:
-         * - Likes directos entre usuarios
-         * - Gustos similares (likes a los mismos autores)
-         */
-        Map<String, List<Arista>> grafoPonderado = new HashMap<>();
+        @Override
+        protected void compute() {
+            if (hasta - desde <= UMBRAL) {
+                for (int usuario = desde; usuario < hasta; usuario++) {
+                    for (int arista = grafo.inicio(usuario); arista < grafo.fin(usuario); arista++) {
+                        pesoArista(grafo, usuario, arista, servicioInteracciones);
+                    }
+                }
+                return;
+            }
+            int medio = (desde + hasta) >>> 1;
+            invokeAll(new TareaPesos(grafo, servicioInteracciones, desde, medio),
+                    new TareaPesos(grafo, servicioInteracciones, medio, hasta));
+        }
+    }
+
+    /**
+     * Corre Dijkstra top-k para un rango de origenes; cada hoja escribe su
+     * bloque de líneas de una sola vez.
+     */
+    private static class TareaLote extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int UMBRAL = 64;
+
+        private final GrafoCompacto grafo;
+        private final ServicioInteracciones servicioInteracciones;
+        private final int[] origenes;
+        private final int desde;
+        private final int hasta;
+        private final int k;
+        private final double distanciaMaxima;
+        private final ThreadLocal<EspacioDijkstra> espacios;
+        private final Writer escritor;
+
+        TareaLote(GrafoCompacto grafo, ServicioInteracciones servicioInteracciones, int[] origenes, int desde,
+                int hasta, int k, double distanciaMaxima, ThreadLocal<EspacioDijkstra> espacios, Writer escritor) {
+            this.grafo = grafo;
+            this.servicioInteracciones = servicioInteracciones;
+            this.origenes = origenes;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.k = k;
+            this.distanciaMaxima = distanciaMaxima;
+            this.espacios = espacios;
+            this.escritor = escritor;
+        }
 
-        for (Map.Entry<String, List<String>> entry : grafo.entrySet()) {
-            String usuario = entry.getKey();
-            List<String> amigos = entry.getValue();
-            List<Arista> aristas = new ArrayList<>();
+        @Override
+        protected void compute() {
+            if (hasta - desde > UMBRAL) {
+                int medio = (desde + hasta) >>> 1;
+                invokeAll(new TareaLote(grafo, servicioInteracciones, origenes, desde, medio, k, distanciaMaxima,
+                        espacios, escritor),
+                        new TareaLote(grafo, servicioInteracciones, origenes, medio, hasta, k, distanciaMaxima,
+                                espacios, escritor));
+                return;
+            }
 
-            for (String amigo : amigos) {
-                // calcula el peso basado en interacciones
-                double pesoArista = calcularDistanciaSocial(usuario, amigo, servicioInteracciones);
-                aristas.add(new Arista(amigo, pesoArista));
+            EspacioDijkstra espacio = espacios.get();
+            StringBuilder bloque = new StringBuilder();
+            for (int i = desde; i < hasta; i++) {
+                int origen = origenes[i];
+                SeleccionTopK seleccion = new SeleccionTopK(grafo, espacio.distancias, origen, k);
+                dijkstra(grafo, origen, servicioInteracciones, distanciaMaxima, espacio, seleccion);
+                List<String> recomendaciones = seleccion.resultado(); // antes de limpiar las distancias
+                espacio.limpiar();
+
+                bloque.append(grafo.id(origen)).append(',')
+                        .append(String.join(";", recomendaciones)).append('\n');
             }
 
-            grafoPonderado.put(usuario, aristas);
+            try {
+                synchronized (escritor) {
+                    escritor.write(bloque.toString());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
+    }
 
-        return grafoPonderado;
+    private static float pesoArista(GrafoCompacto grafo, int usuario, int arista,
+            ServicioInteracciones servicioInteracciones) {
+        float peso = grafo.peso(arista);
+        if (Float.isNaN(peso)) {
+            // calcula el peso basado en interacciones
+            peso = (float) calcularDistanciaSocial(grafo.id(usuario), grafo.id(grafo.destino(arista)),
+                    servicioInteracciones);
+            grafo.setPeso(arista, peso);
+        }
+        return peso;
     }
 
-    
     private static double calcularDistanciaSocial(String usuario1, String usuario2,
             ServicioInteracciones servicioInteracciones) {
 
@@ -140,40 +391,120 @@ public class RecomendacionAmigos {
          */        
 
         // usar dijkstra
-        Map<String, Double> distancias = distanciasDesde(grafo, usuarioId, servicioInteracciones);
+        GrafoCompacto grafoCompacto = GrafoCompacto.desde(grafo);
+        int origen = grafoCompacto.indice(usuarioId);
+        if (origen < 0) {
+            return new ArrayList<>();
+        }
+        EspacioDijkstra espacio = new EspacioDijkstra(grafoCompacto.cantidadNodos());
+        SeleccionTopK seleccion = new SeleccionTopK(grafoCompacto, espacio.distancias, origen,
+                CANTIDAD_RECOMENDACIONES);
+        dijkstra(grafoCompacto, origen, servicioInteracciones, DISTANCIA_MAXIMA, espacio, seleccion);
 
-        // tener los amigos directos para no contarlos
-        List<String> amigosDirectos = grafo.getOrDefault(usuarioId, new ArrayList<>());
+        return seleccion.resultado();
+    }
 
-        List<Map.Entry<String, Double>> candidatos = new ArrayList<>();
+    /**
+     * Mantiene los k mejores candidatos en un heap acotado (el peor arriba),
+     * en lugar de juntar todos y ordenarlos. Los empates se resuelven por id.
+     */
+    private static class SeleccionTopK {
+        private final GrafoCompacto grafo;
+        private final double[] distancias;
+        private final int origen;
+        private final int k;
+        private final Set<Integer> amigosDirectos;
+        private final PriorityQueue<Integer> peores;
+
+        SeleccionTopK(GrafoCompacto grafo, double[] distancias, int origen, int k) {
+            this.grafo = grafo;
+            this.distancias = distancias;
+            this.origen = origen;
+            this.k = k;
+
+            // tener los amigos directos para no contarlos
+            this.amigosDirectos = new HashSet<>();
+            for (int arista = grafo.inicio(origen); arista < grafo.fin(origen); arista++) {
+                amigosDirectos.add(grafo.destino(arista));
+            }
 
-        for (Map.Entry<String, Double> entry : distancias.entrySet()) {
-            String usuario = entry.getKey();
-            double distancia = entry.getValue();
+            Comparator<Integer> mejorPrimero = Comparator.<Integer>comparingDouble(usuario -> distancias[usuario])
+                    .thenComparing(grafo::id);
+            this.peores = new PriorityQueue<>(Math.max(1, k), mejorPrimero.reversed());
+        }
 
+        /**
+         * Recibe los nodos en el orden en que Dijkstra los asienta.
+         */
+        void ofrecer(int usuario) {
             // filtramos:
             // - No recomendarse a sí mismo
             // - No recomendar amigos existentes
-            // - solo usuarios a distancias razonables (1 a 4)
-            if (!usuario.equals(usuarioId) &&
-                    !amigosDirectos.contains(usuario) &&
-                    distancia > 0 && distancia <= 4.0) {
-                candidatos.add(entry);
+            if (usuario == origen || distancias[usuario] <= 0 || amigosDirectos.contains(usuario)) {
+                return;
+            }
+            peores.add(usuario);
+            if (peores.size() > Math.max(0, k)) {
+                peores.poll();
+            }
+        }
+
+        /**
+         * Con k candidatos, un nodo más lejano que el peor ya no puede entrar.
+         */
+        boolean completa(double proximaDistancia) {
+            if (k <= 0) {
+                return true;
             }
+            return peores.size() == k && proximaDistancia > distancias[peores.peek()];
         }
 
-        // 4. Ordenar por distancia: menor distancia = mejor recomendación
-        candidatos.sort(Map.Entry.comparingByValue());
+        // menor distancia = mejor recomendación
+        List<String> resultado() {
+            List<String> recomendaciones = new ArrayList<>(peores.size());
+            while (!peores.isEmpty()) {
+                recomendaciones.add(grafo.id(peores.poll()));
+            }
+            Collections.reverse(recomendaciones);
+            return recomendaciones;
+        }
+    }
+
+    /**
+     * Arreglos de trabajo de Dijkstra. Se reutilizan entre consultas: limpiar()
+     * solo restablece los nodos que la última búsqueda tocó.
+     */
+    private static class EspacioDijkstra {
+        final double[] distancias;
+        final HeapIndexado cola;
+        private final int[] tocados;
+        private int cantidadTocados;
+
+        EspacioDijkstra(int capacidad) {
+            this.distancias = new double[capacidad];
+            this.cola = new HeapIndexado(capacidad);
+            this.tocados = new int[capacidad];
+            Arrays.fill(distancias, Double.MAX_VALUE);
+        }
 
-        // 5. Retornar mejores candidatos (máximo 5)
-        List<String> recomendaciones = new ArrayList<>();
-        int limite = Math.min(5, candidatos.size());
+        int capacidad() {
+            return distancias.length;
+        }
 
-        for (int i = 0; i < limite; i++) {
-            recomendaciones.add(candidatos.get(i).getKey());
+        void asignar(int nodo, double distancia) {
+            if (distancias[nodo] == Double.MAX_VALUE) {
+                tocados[cantidadTocados++] = nodo;
+            }
+            distancias[nodo] = distancia;
         }
 
-        return recomendaciones;
+        void limpiar() {
+            for (int i = 0; i < cantidadTocados; i++) {
+                distancias[tocados[i]] = Double.MAX_VALUE;
+            }
+            cantidadTocados = 0;
+            cola.limpiar();
+        }
     }
 
     /**
@@ -1,16 +1,70 @@
 package algoritmos;
 
+import util.GrafoCompacto;
+import util.Metricas;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Problema de Rutas de Influencia.
- * Paradigma: Backtracking con poda
+ * Paradigma: Ramificación y poda (en profundidad, probando primero los vecinos más conectados)
  * Objetivo: Encontrar la cadena de influencia más efectiva entre dos usuarios.
+ * 
+ * La efectividad de una cadena de L usuarios es 100/L más medio punto por cada
+ * conexión de sus intermedios, así que una cadena a medio armar se puede acotar
+ * por arriba: la base como mucho vale 100/(L+1), porque falta al menos el salto
+ * al destino, y el bonus como mucho es el de los intermedios que ya tiene más
+ * el de todos los usuarios que todavía podrían sumarse. Solo cuentan los que
+ * son alcanzables desde el origen, llegan al destino y conservan algún
+ * predecesor fuera del interior de la cadena. Las ramas cuya cota no supera a
+ * la mejor cadena encontrada se descartan.
+ * 
+ * El camino más corto (BFS) es la primera solución, y la búsqueda respeta un
+ * límite de nodos expandidos y uno de tiempo: si se agota alguno devuelve la
+ * mejor cadena hallada hasta ahí (esOptima() dice si se probó que es la mejor).
+ * 
+ * Modo BIDIRECCIONAL: como origen y destino son fijos, dos BFS crecen a la vez
+ * desde cada punta (la del destino sobre el grafo invertido) hasta que se
+ * tocan, lo que da la distancia más corta explorando dos bolas de la mitad del
+ * radio en lugar de una completa. Después se evalúan solo las cadenas de hasta
+ * "holgura" saltos más que la más corta: se arman desde el origen y la
+ * distancia al destino de la BFS trasera descarta todo vecino que ya no llega
+ * a tiempo, así que no se sale de las dos bolas.
+ * 
+ * Trabaja sobre un GrafoCompacto: los usuarios son índices enteros y la pila
+ * de la búsqueda son arreglos en lugar de recursión, porque una cadena puede
+ * pasar por miles de usuarios.
  */
 public class RutasInfluencia {
+    private static final long LIMITE_EXPANSIONES = 1_000_000;
+    private static final long LIMITE_TIEMPO_MS = 200;
+    // cada cuántas expansiones se mira el reloj
+    private static final int MASCARA_CONTROL_TIEMPO = 255;
+    private static final int HOLGURA = 2;
+
+    public enum Estrategia {
+        RAMIFICACION_Y_PODA,
+        BIDIRECCIONAL
+    }
+
     private Map<String, List<String>> grafo;
-    private List<String> mejorCamino;
+    private GrafoCompacto grafoCompacto; // se reconstruye si se agregan conexiones
+    private GrafoCompacto grafoOrdenado; // grafo para el que se calculó vecinosPorGrado
+    private int[] vecinosPorGrado; // destinos de cada nodo, del más conectado al menos conectado
+    private long limiteExpansiones = LIMITE_EXPANSIONES;
+    private long limiteTiempoNanos = TimeUnit.MILLISECONDS.toNanos(LIMITE_TIEMPO_MS);
+    private int holgura = HOLGURA;
+    private int[] mejorCamino;
+    private int largoMejorCamino;
     private double mejorEfectividad;
+    private long nodosExpandidos; // nodos agregados a la cadena (o sacados de una BFS) en la búsqueda actual
+    private boolean optima;
+    private long inicioCadenas; // System.nanoTime() al empezar a armar cadenas
+
+    private static final Metricas.Histograma LATENCIA = Metricas.histograma("rutas.buscarCadenas.ns");
+    private static final Metricas.Histograma NODOS_EXPANDIDOS = Metricas.histograma("rutas.nodosExpandidos");
+    private static final Metricas.Histograma TAMANO_GRAFO = Metricas.histograma("rutas.nodosGrafo");
+    private static final Metricas.Contador BUSQUEDAS_CORTADAS = Metricas.contador("rutas.busquedasCortadas");
     
     public RutasInfluencia() {
         this.grafo = new HashMap<>();
@@ -18,97 +72,603 @@ public class RutasInfluencia {
         this.mejorEfectividad = 0.0;
     }
     
+    /**
+     * Trabaja directamente sobre un grafo ya compactado (por ejemplo el de
+     * ServicioUsuarios), sin copiar las conexiones.
+     */
+    public RutasInfluencia(GrafoCompacto grafoCompacto) {
+        this.grafo = null;
+        this.grafoCompacto = grafoCompacto;
+        this.mejorCamino = null;
+        this.mejorEfectividad = 0.0;
+    }
+    
     //Añade una conexión entre dos usuarios en el grafo.
     public void agregarConexion(String origen, String destino) {
+        if (grafo == null) {
+            grafo = aListasDeAdyacencia(grafoCompacto);
+        }
         grafo.computeIfAbsent(origen, k -> new ArrayList<>()).add(destino);
+        grafoCompacto = null;
+    }
+
+    /**
+     * Máximo de usuarios que una búsqueda agrega a la cadena antes de rendirse
+     * (por defecto un millón).
+     */
+    public void setLimiteExpansiones(long limiteExpansiones) {
+        this.limiteExpansiones = limiteExpansiones;
+    }
+
+    /**
+     * Tiempo máximo para armar cadenas en una búsqueda (por defecto 200 ms).
+     * No incluye la preparación (BFS y componentes), que es lineal en el
+     * tamaño del grafo y siempre se completa.
+     */
+    public void setLimiteTiempo(long cantidad, TimeUnit unidad) {
+        this.limiteTiempoNanos = unidad.toNanos(cantidad);
+    }
+
+    /**
+     * Saltos de más, respecto de la cadena más corta, que puede tener una
+     * cadena en el modo BIDIRECCIONAL (por defecto 2).
+     */
+    public void setHolgura(int holgura) {
+        this.holgura = Math.max(0, holgura);
+    }
+
+    public long getNodosExpandidos() {
+        return nodosExpandidos;
+    }
+
+    /**
+     * true si la última búsqueda terminó sin agotar sus límites: con
+     * RAMIFICACION_Y_PODA la cadena devuelta es la más efectiva que existe, y
+     * con BIDIRECCIONAL la más efectiva entre las que tienen a lo sumo
+     * "holgura" saltos más que la más corta.
+     */
+    public boolean esOptima() {
+        return optima;
     }
     
-    //busca las cadenas entre usuarios usando backtracking con poda.
+    //busca la cadena más efectiva entre dos usuarios usando ramificación y poda.
     public List<String> buscarCadenas(String origen, String destino) {
-        Set<String> visitados = new HashSet<>();
-        List<String> caminoActual = new ArrayList<>();
+        return buscarCadenas(origen, destino, Estrategia.RAMIFICACION_Y_PODA);
+    }
+
+    public List<String> buscarCadenas(String origen, String destino, Estrategia estrategia) {
+        long inicio = System.nanoTime();
+        GrafoCompacto g = grafoCompacto();
         mejorCamino = null;
+        largoMejorCamino = 0;
         mejorEfectividad = 0.0;
-        
-        caminoActual.add(origen);
-        visitados.add(origen);
-        
-        backtrack(origen, destino, visitados, caminoActual);
-        
-        return mejorCamino;
+        nodosExpandidos = 0;
+        optima = true;
+
+        int indiceOrigen = g.indice(origen);
+        int indiceDestino = g.indice(destino);
+        if (indiceOrigen < 0 || indiceDestino < 0) {
+            // sin conexiones salientes del origen solo existe el camino trivial origen == destino
+            return origen.equals(destino) ? new ArrayList<>(List.of(origen)) : null;
+        }
+
+        if (indiceOrigen == indiceDestino) {
+            mejorCamino = new int[] {indiceOrigen};
+            largoMejorCamino = 1;
+        } else if (estrategia == Estrategia.BIDIRECCIONAL) {
+            buscarBidireccional(g, indiceOrigen, indiceDestino);
+        } else {
+            ramificarYPodar(g, indiceOrigen, indiceDestino);
+        }
+
+        if (!optima) {
+            BUSQUEDAS_CORTADAS.incrementar();
+        }
+        LATENCIA.registrarDesde(inicio);
+        NODOS_EXPANDIDOS.registrar(nodosExpandidos);
+        TAMANO_GRAFO.registrar(g.cantidadNodos());
+        return aIds(g, mejorCamino, largoMejorCamino);
     }
-    
+
     /**
-     * Implementa el backtracking con poda para encontrar el camino más efectivo.
+     * Búsqueda en profundidad con cota superior. El bonus de los usuarios que
+     * todavía pueden ser intermedios ("restante") se mantiene al agregar y
+     * sacar usuarios de la cadena: un usuario que ya no tiene predecesores
+     * libres (todos son intermedios de la cadena) deja de contar.
      */
-    private void backtrack(String actual, String destino, Set<String> visitados, List<String> caminoActual) {
-        // Caso base: llegamos al destino
-        if (actual.equals(destino)) {
-            double efectividadActual = evaluarCamino(caminoActual);
-            if (mejorCamino == null || efectividadActual > mejorEfectividad) {
-                mejorCamino = new ArrayList<>(caminoActual);
-                mejorEfectividad = efectividadActual;
+    private void ramificarYPodar(GrafoCompacto g, int origen, int destino) {
+        int n = g.cantidadNodos();
+
+        // BFS desde el origen, sin pasar por el destino: alcanzables y camino más corto
+        int[] padre = new int[n];
+        Arrays.fill(padre, -1);
+        padre[origen] = origen;
+        int[] cola = new int[n];
+        int frente = 0;
+        int fondo = 0;
+        cola[fondo++] = origen;
+        while (frente < fondo) {
+            int u = cola[frente++];
+            if (u == destino) {
+                continue;
+            }
+            for (int arista = g.inicio(u); arista < g.fin(u); arista++) {
+                int v = g.destino(arista);
+                if (padre[v] < 0) {
+                    padre[v] = u;
+                    cola[fondo++] = v;
+                }
             }
-            return;
         }
-        
-        // verificar si el camino actual puede mejorar
-        if (!puedeMejorar(caminoActual, mejorCamino)) {
+        if (padre[destino] < 0) {
             return;
         }
-        
-        // ver vecinos
-        List<String> vecinos = grafo.getOrDefault(actual, new ArrayList<>());
-        for (String vecino : vecinos) {
-            if (!visitados.contains(vecino)) {
-                visitados.add(vecino);
-                caminoActual.add(vecino);
-                
-                backtrack(vecino, destino, visitados, caminoActual);
-                
+        int largoCorto = 1;
+        for (int v = destino; v != origen; v = padre[v]) {
+            largoCorto++;
+        }
+        int[] caminoCorto = new int[largoCorto];
+        for (int v = destino, i = largoCorto - 1; i >= 0; v = padre[v], i--) {
+            caminoCorto[i] = v;
+        }
+        actualizarMejor(caminoCorto, largoCorto, evaluarCamino(g, caminoCorto, largoCorto));
+
+        // BFS hacia atrás desde el destino: de los alcanzables que están en algún camino simple
+        // sin dirección entre los dos, los que llegan al destino sin pasar por el origen
+        boolean[] enBloques = bloquesEntre(g, origen, destino);
+        boolean[] utiles = new boolean[n];
+        GrafoCompacto invertido = g.invertido();
+        frente = 0;
+        fondo = 0;
+        cola[fondo++] = destino;
+        utiles[destino] = true;
+        while (frente < fondo) {
+            int u = cola[frente++];
+            if (u == origen) {
+                continue;
+            }
+            for (int arista = invertido.inicio(u); arista < invertido.fin(u); arista++) {
+                int v = invertido.destino(arista);
+                if (!utiles[v] && padre[v] >= 0 && enBloques[v]) {
+                    utiles[v] = true;
+                    cola[fondo++] = v;
+                }
+            }
+        }
+
+        int[] predecesoresLibres = new int[n];
+        long restante = 0;
+        for (int i = 0; i < fondo; i++) {
+            int u = cola[i];
+            if (u == destino) {
+                continue;
+            }
+            if (u != origen) {
+                restante += g.grado(u);
+            }
+            for (int arista = g.inicio(u); arista < g.fin(u); arista++) {
+                if (utiles[g.destino(arista)]) {
+                    predecesoresLibres[g.destino(arista)]++;
+                }
+            }
+        }
+
+        int[] vecinos = vecinosPorGrado(g);
+        boolean[] visitados = new boolean[n];
+        inicioCadenas = System.nanoTime();
+        int[] caminoActual = new int[n];
+        int[] siguienteArista = new int[n]; // próxima arista a probar en cada nivel de la pila
+        long gradosIntermedios = 0;
+
+        caminoActual[0] = origen;
+        siguienteArista[0] = g.inicio(origen);
+        visitados[origen] = true;
+        restante -= cerrarSalidas(g, origen, destino, utiles, visitados, predecesoresLibres);
+        int largo = 1;
+
+        while (largo > 0) {
+            int actual = caminoActual[largo - 1];
+            if (siguienteArista[largo - 1] == g.fin(actual)) {
                 // volver para atras
-                visitados.remove(vecino);
-                caminoActual.remove(caminoActual.size() - 1);
+                restante += abrirSalidas(g, actual, destino, utiles, visitados, predecesoresLibres);
+                visitados[actual] = false;
+                if (largo > 1) {
+                    gradosIntermedios -= g.grado(actual);
+                    if (predecesoresLibres[actual] > 0) {
+                        restante += g.grado(actual);
+                    }
+                }
+                largo--;
+                continue;
+            }
+
+            int vecino = vecinos[siguienteArista[largo - 1]++];
+            if (vecino == destino) {
+                double efectividad = efectividad(largo + 1, gradosIntermedios);
+                if (efectividad > mejorEfectividad) {
+                    caminoActual[largo] = destino;
+                    actualizarMejor(caminoActual, largo + 1, efectividad);
+                }
+                continue;
+            }
+            if (visitados[vecino] || !utiles[vecino] || predecesoresLibres[destino] == 0) {
+                continue;
+            }
+
+            // el vecino pasa a ser intermedio y todavía falta al menos el salto al destino
+            long bonusVecino = predecesoresLibres[vecino] > 0 ? g.grado(vecino) : 0;
+            double cota = efectividad(largo + 2, gradosIntermedios + g.grado(vecino) + restante - bonusVecino);
+            if (cota <= mejorEfectividad) {
+                continue;
+            }
+
+            if (agotoLimites()) {
+                return;
+            }
+
+            visitados[vecino] = true;
+            gradosIntermedios += g.grado(vecino);
+            restante -= bonusVecino;
+            caminoActual[largo] = vecino;
+            siguienteArista[largo] = g.inicio(vecino);
+            largo++;
+            restante -= cerrarSalidas(g, vecino, destino, utiles, visitados, predecesoresLibres);
+        }
+    }
+
+    /**
+     * Modo BIDIRECCIONAL. Se expande siempre el frente cuyo próximo nivel
+     * tiene menos aristas; cuando un nivel completo toca al otro frente ya se
+     * conoce la distancia más corta. Los frentes siguen creciendo hasta que
+     * sus radios suman esa distancia más la holgura, y entonces las cadenas se
+     * arman hacia adelante con la distancia al destino como guía.
+     */
+    private void buscarBidireccional(GrafoCompacto g, int origen, int destino) {
+        Frente adelante = new Frente(g, origen, destino);
+        Frente atras = new Frente(g.invertido(), destino, origen);
+
+        int masCorta = Integer.MAX_VALUE;
+        while (masCorta == Integer.MAX_VALUE) {
+            if (adelante.agotado() && atras.agotado()) {
+                return; // los dos lados vieron todo lo que alcanzan sin tocarse
+            }
+            masCorta = expandirMenor(adelante, atras);
+        }
+
+        int maximoSaltos = masCorta + holgura;
+        while (adelante.radio + atras.radio < maximoSaltos && !(adelante.agotado() && atras.agotado())) {
+            expandirMenor(adelante, atras);
+        }
+
+        // cadenas de hasta maximoSaltos saltos, en profundidad desde el origen
+        boolean[] visitados = new boolean[g.cantidadNodos()];
+        int[] caminoActual = new int[maximoSaltos + 1];
+        int[] siguienteArista = new int[maximoSaltos + 1];
+        caminoActual[0] = origen;
+        siguienteArista[0] = g.inicio(origen);
+        visitados[origen] = true;
+        int largo = 1;
+        inicioCadenas = System.nanoTime();
+
+        while (largo > 0) {
+            int actual = caminoActual[largo - 1];
+            if (siguienteArista[largo - 1] == g.fin(actual)) {
+                visitados[actual] = false;
+                largo--;
+                continue;
+            }
+
+            int vecino = g.destino(siguienteArista[largo - 1]++);
+            if (vecino == destino) {
+                caminoActual[largo] = destino;
+                double efectividad = evaluarCamino(g, caminoActual, largo + 1);
+                if (efectividad > mejorEfectividad) {
+                    actualizarMejor(caminoActual, largo + 1, efectividad);
+                }
+                continue;
+            }
+            if (visitados[vecino]) {
+                continue;
+            }
+            // saltos que como mínimo le faltan al vecino: fuera de la BFS trasera, más que su radio
+            int faltan;
+            if (atras.distancia[vecino] >= 0) {
+                faltan = atras.distancia[vecino];
+            } else if (atras.agotado()) {
+                continue; // no llega al destino
+            } else {
+                faltan = atras.radio + 1;
+            }
+            if (largo + faltan > maximoSaltos) {
+                continue;
             }
+
+            if (agotoLimites()) {
+                return;
+            }
+            visitados[vecino] = true;
+            caminoActual[largo] = vecino;
+            siguienteArista[largo] = g.inicio(vecino);
+            largo++;
         }
     }
+
+    // expande el frente no agotado con el próximo nivel más barato (si uno se agotó, el otro aún puede tocarlo)
+    private int expandirMenor(Frente adelante, Frente atras) {
+        boolean haciaAdelante = atras.agotado()
+                || (!adelante.agotado() && adelante.costoProximoNivel() <= atras.costoProximoNivel());
+        Frente menor = haciaAdelante ? adelante : atras;
+        nodosExpandidos += menor.nodosEnNivel();
+        return menor.expandirNivel(haciaAdelante ? atras : adelante);
+    }
+
+    /**
+     * Una de las dos BFS del modo bidireccional, expandida de a un nivel
+     * completo por vez. La cola guarda todos los nodos vistos en orden: el
+     * nivel actual es el tramo [inicioNivel, finNivel).
+     */
+    private static final class Frente {
+        private final GrafoCompacto grafo;
+        private final int noAtravesar; // la otra punta: se llega a ella pero no se sigue de largo
+        private final int[] distancia;
+        private final int[] cola;
+        private int inicioNivel;
+        private int finNivel;
+        private int radio;
+
+        Frente(GrafoCompacto grafo, int raiz, int noAtravesar) {
+            this.grafo = grafo;
+            this.noAtravesar = noAtravesar;
+            this.distancia = new int[grafo.cantidadNodos()];
+            Arrays.fill(distancia, -1);
+            this.cola = new int[grafo.cantidadNodos()];
+            distancia[raiz] = 0;
+            cola[0] = raiz;
+            finNivel = 1;
+        }
+
+        boolean agotado() {
+            return inicioNivel == finNivel;
+        }
+
+        int nodosEnNivel() {
+            return finNivel - inicioNivel;
+        }
+
+        long costoProximoNivel() {
+            long aristas = 0;
+            for (int i = inicioNivel; i < finNivel; i++) {
+                aristas += grafo.grado(cola[i]);
+            }
+            return aristas;
+        }
+
+        /**
+         * Expande el nivel actual. Devuelve el largo del camino más corto que
+         * pasa por un nodo que este nivel encontró ya visto por el otro frente,
+         * o Integer.MAX_VALUE si no tocó ninguno.
+         */
+        int expandirNivel(Frente otro) {
+            int masCorta = Integer.MAX_VALUE;
+            int fondo = finNivel;
+            for (int i = inicioNivel; i < finNivel; i++) {
+                int u = cola[i];
+                if (u == noAtravesar) {
+                    continue;
+                }
+                for (int arista = grafo.inicio(u); arista < grafo.fin(u); arista++) {
+                    int v = grafo.destino(arista);
+                    if (distancia[v] < 0) {
+                        distancia[v] = radio + 1;
+                        cola[fondo++] = v;
+                        if (otro.distancia[v] >= 0) {
+                            masCorta = Math.min(masCorta, radio + 1 + otro.distancia[v]);
+                        }
+                    }
+                }
+            }
+            inicioNivel = finNivel;
+            finNivel = fondo;
+            radio++;
+            return masCorta;
+        }
+    }
+
+    // cuenta una expansión y dice si la búsqueda se pasó de sus límites
+    private boolean agotoLimites() {
+        nodosExpandidos++;
+        if (nodosExpandidos > limiteExpansiones || ((nodosExpandidos & MASCARA_CONTROL_TIEMPO) == 0
+                && System.nanoTime() - inicioCadenas > limiteTiempoNanos)) {
+            optima = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Marca los usuarios que están en algún camino simple entre origen y
+     * destino si se ignora el sentido de las amistades: los de las componentes
+     * biconexas que hay que atravesar para ir de uno al otro (Tarjan, con una
+     * DFS iterativa). Toda cadena de influencia pasa solo por ellos; descarta,
+     * por ejemplo, las ramas que cuelgan de un usuario de la cadena y no
+     * vuelven a ella.
+     */
+    private static boolean[] bloquesEntre(GrafoCompacto g, int origen, int destino) {
+        int n = g.cantidadNodos();
+        GrafoCompacto invertido = g.invertido();
+        int[] descubrimiento = new int[n];
+        Arrays.fill(descubrimiento, -1);
+        int[] bajo = new int[n];
+        int[] padreArbol = new int[n];
+        int[] siguiente = new int[n]; // próximo vecino a mirar: primero salientes y después entrantes
+        int[] pila = new int[n];
+        int[] orden = new int[n];
+        int descubiertos = 0;
+        int tope = 0;
+
+        descubrimiento[origen] = 0;
+        bajo[origen] = 0;
+        orden[descubiertos++] = origen;
+        pila[tope++] = origen;
+        while (tope > 0) {
+            int u = pila[tope - 1];
+            if (siguiente[u] < g.grado(u) + invertido.grado(u)) {
+                int k = siguiente[u]++;
+                int v = k < g.grado(u) ? g.destino(g.inicio(u) + k)
+                        : invertido.destino(invertido.inicio(u) + k - g.grado(u));
+                if (descubrimiento[v] < 0) {
+                    descubrimiento[v] = descubiertos;
+                    bajo[v] = descubiertos;
+                    padreArbol[v] = u;
+                    orden[descubiertos++] = v;
+                    pila[tope++] = v;
+                } else {
+                    // la arista al padre también cuenta: no cambia qué hijos inician una componente
+                    bajo[u] = Math.min(bajo[u], descubrimiento[v]);
+                }
+            } else {
+                tope--;
+                if (u != origen) {
+                    bajo[padreArbol[u]] = Math.min(bajo[padreArbol[u]], bajo[u]);
+                }
+            }
+        }
+
+        // cada componente se identifica por el hijo con el que empieza en el árbol de la DFS
+        int[] componente = new int[n];
+        for (int i = 1; i < descubiertos; i++) {
+            int v = orden[i];
+            int p = padreArbol[v];
+            componente[v] = bajo[v] >= descubrimiento[p] ? v : componente[p];
+        }
+        boolean[] componenteEnCamino = new boolean[n];
+        if (descubrimiento[destino] >= 0) {
+            for (int v = destino; v != origen; v = padreArbol[v]) {
+                componenteEnCamino[componente[v]] = true;
+            }
+        }
+        boolean[] enBloques = new boolean[n];
+        enBloques[origen] = true;
+        for (int i = 1; i < descubiertos; i++) {
+            int v = orden[i];
+            enBloques[v] = componenteEnCamino[componente[v]];
+        }
+        return enBloques;
+    }
+
+    /**
+     * El nodo pasa al interior de la cadena: ninguno de sus sucesores puede
+     * entrar por él, salvo el que se elija como siguiente. Devuelve el bonus de
+     * los que se quedaron sin predecesores libres.
+     */
+    private static long cerrarSalidas(GrafoCompacto g, int nodo, int destino, boolean[] utiles, boolean[] visitados,
+            int[] predecesoresLibres) {
+        long perdido = 0;
+        for (int arista = g.inicio(nodo); arista < g.fin(nodo); arista++) {
+            int sucesor = g.destino(arista);
+            if (utiles[sucesor] && --predecesoresLibres[sucesor] == 0 && !visitados[sucesor] && sucesor != destino) {
+                perdido += g.grado(sucesor);
+            }
+        }
+        return perdido;
+    }
+
+    // deshace cerrarSalidas al sacar el nodo de la cadena
+    private static long abrirSalidas(GrafoCompacto g, int nodo, int destino, boolean[] utiles, boolean[] visitados,
+            int[] predecesoresLibres) {
+        long recuperado = 0;
+        for (int arista = g.inicio(nodo); arista < g.fin(nodo); arista++) {
+            int sucesor = g.destino(arista);
+            if (utiles[sucesor] && predecesoresLibres[sucesor]++ == 0 && !visitados[sucesor] && sucesor != destino) {
+                recuperado += g.grado(sucesor);
+            }
+        }
+        return recuperado;
+    }
+
+    private void actualizarMejor(int[] camino, int largo, double efectividad) {
+        mejorCamino = Arrays.copyOf(camino, largo);
+        largoMejorCamino = largo;
+        mejorEfectividad = efectividad;
+    }
     
     /**
      * resolver la efectividad de un camino
      */
-    private double evaluarCamino(List<String> camino) {
-        
-        if (camino.size() <= 1) return 0.0;
-        
-        double efectividad = 100.0; // Base inicial
+    private double evaluarCamino(GrafoCompacto g, int[] camino, int largo) {
         
-        // Penalización por longitud
-        efectividad /= camino.size();
+        if (largo <= 1) return 0.0;
         
         // Bonus por conexiones de nodos intermedios
-        for (int i = 1; i < camino.size() - 1; i++) {
-            String nodo = camino.get(i);
-            int conexiones = grafo.getOrDefault(nodo, new ArrayList<>()).size();
-            efectividad += conexiones * 0.5; 
+        long conexiones = 0;
+        for (int i = 1; i < largo - 1; i++) {
+            conexiones += g.grado(camino[i]);
         }
         
-        return efectividad;
+        return efectividad(largo, conexiones);
     }
-    
+
+    // base inicial 100 penalizada por la longitud, más medio punto por conexión de los intermedios
+    private static double efectividad(int largo, long conexionesIntermedios) {
+        return 100.0 / largo + conexionesIntermedios * 0.5;
+    }
+
     /**
-     * evaluar si puede mejorar el camino
+     * Destinos de cada nodo ordenados de mayor a menor grado (los empates
+     * conservan el orden original), en las mismas posiciones que las aristas
+     * del grafo. Se calcula una vez por grafo.
      */
-    private boolean puedeMejorar(List<String> caminoActual, List<String> mejorCamino) {
-        if (mejorCamino == null) return true;
-        
-        if (caminoActual.size() > mejorCamino.size() * 1.5) {
-            return false;
+    private int[] vecinosPorGrado(GrafoCompacto g) {
+        if (grafoOrdenado != g) {
+            int[] vecinos = new int[g.cantidadAristas()];
+            long[] claves = new long[g.cantidadAristas()];
+            for (int u = 0; u < g.cantidadNodos(); u++) {
+                // clave: grado invertido en la parte alta y posición en la lista en la baja
+                for (int arista = g.inicio(u); arista < g.fin(u); arista++) {
+                    claves[arista] = ((long) (Integer.MAX_VALUE - g.grado(g.destino(arista))) << 32)
+                            | (arista - g.inicio(u));
+                }
+                Arrays.sort(claves, g.inicio(u), g.fin(u));
+                for (int arista = g.inicio(u); arista < g.fin(u); arista++) {
+                    vecinos[arista] = g.destino(g.inicio(u) + (int) claves[arista]);
+                }
+            }
+            vecinosPorGrado = vecinos;
+            grafoOrdenado = g;
         }
-        
-        // estimacion de si hay nodos conectados
-        String ultimoNodo = caminoActual.get(caminoActual.size() - 1);
-        int conexionesRestantes = grafo.getOrDefault(ultimoNodo, new ArrayList<>()).size();
-        return conexionesRestantes > 0;
+        return vecinosPorGrado;
+    }
+
+    private GrafoCompacto grafoCompacto() {
+        if (grafoCompacto == null) {
+            grafoCompacto = GrafoCompacto.desde(grafo);
+        }
+        return grafoCompacto;
+    }
+
+    private static List<String> aIds(GrafoCompacto g, int[] camino, int largo) {
+        if (camino == null) {
+            return null;
+        }
+        List<String> ids = new ArrayList<>(largo);
+        for (int i = 0; i < largo; i++) {
+            ids.add(g.id(camino[i]));
+        }
+        return ids;
+    }
+
+    private static Map<String, List<String>> aListasDeAdyacencia(GrafoCompacto g) {
+        Map<String, List<String>> listas = new HashMap<>();
+        for (int u = 0; u < g.cantidadNodos(); u++) {
+            if (g.grado(u) > 0) {
+                List<String> vecinos = new ArrayList<>(g.grado(u));
+                for (int arista = g.inicio(u); arista < g.fin(u); arista++) {
+                    vecinos.add(g.id(g.destino(arista)));
+                }
+                listas.put(g.id(u), vecinos);
+            }
+        }
+        return listas;
     }
     
     /**
@@ -0,0 +1,38 @@
+package datos;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+/**
+ * Reemplazo durable de instantáneas: el temporal se escribe y se fuerza a
+ * disco (force) antes de renombrarlo, y después se fuerza el directorio para
+ * que el rename también sobreviva a un corte de luz. Recién entonces se puede
+ * descartar la bitácora que la instantánea reemplaza.
+ */
+final class Archivos {
+    private Archivos() {
+    }
+
+    /**
+     * Renombra el temporal (ya forzado a disco) sobre el destino de forma
+     * atómica y sincroniza el directorio que los contiene.
+     */
+    static void reemplazar(File temporal, File destino) throws IOException {
+        Files.move(temporal.toPath(), destino.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        sincronizarDirectorio(destino.getAbsoluteFile().getParentFile());
+    }
+
+    // en algunos sistemas (Windows) un directorio no se puede abrir para force: ahí el rename ya es durable
+    private static void sincronizarDirectorio(File directorio) {
+        if (directorio == null) {
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(directorio.toPath(), StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // sin soporte para sincronizar directorios
+        }
+    }
+}
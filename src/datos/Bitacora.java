@@ -0,0 +1,221 @@
+package datos;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Registro de solo anexado (write-ahead log) de líneas de texto.
+ * Cada línea se agrega al final del archivo sin reescribir lo anterior, y el
+ * fsync se agrupa: se fuerza a disco cada N registros o cada T milisegundos
+ * (lo que ocurra primero), asi el costo por escritura no depende del tamaño
+ * del historial.
+ *
+ * Un corte a mitad de una escritura puede dejar la última línea incompleta:
+ * antes de leer o de agregar por primera vez, los segmentos se recortan
+ * hasta el último registro completo, así lo siguiente no se pega a esa línea.
+ */
+public class Bitacora implements Closeable {
+    private static final String SUFIJO_ROTADO = ".compactando";
+
+    // hilo compartido que sincroniza los lotes que quedaron pendientes por tiempo
+    private static final ScheduledExecutorService PLANIFICADOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "bitacora-sync");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private final File archivo;
+    private final int registrosPorLote;
+    private final long milisegundosPorLote;
+    private final ScheduledFuture<?> tareaSincronizacion;
+
+    private FileOutputStream salidaArchivo;
+    private BufferedOutputStream salida;
+    private int pendientes;
+    private long ultimaSincronizacion;
+    private long registros; // registros en el archivo desde la última rotación
+    private boolean revisada; // ya se recortaron los registros incompletos de los segmentos
+
+    public Bitacora(File archivo, int registrosPorLote, long milisegundosPorLote) {
+        this.archivo = archivo;
+        this.registrosPorLote = registrosPorLote;
+        this.milisegundosPorLote = milisegundosPorLote;
+        this.ultimaSincronizacion = System.currentTimeMillis();
+        this.tareaSincronizacion = PLANIFICADOR.scheduleWithFixedDelay(this::sincronizarSiVencido,
+                milisegundosPorLote, milisegundosPorLote, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Agrega una línea al final de la bitácora. Solo se hace fsync cuando se
+     * completa el lote (por cantidad o por tiempo).
+     */
+    public synchronized void agregar(String linea) throws IOException {
+        abrirSiEsNecesario();
+        salida.write(linea.getBytes(StandardCharsets.UTF_8));
+        salida.write('\n');
+        pendientes++;
+        registros++;
+
+        if (pendientes >= registrosPorLote
+                || System.currentTimeMillis() - ultimaSincronizacion >= milisegundosPorLote) {
+            sincronizar();
+        }
+    }
+
+    /**
+     * Fuerza a disco todo lo pendiente (group commit).
+     */
+    public synchronized void sincronizar() throws IOException {
+        if (salida != null && pendientes > 0) {
+            salida.flush();
+            salidaArchivo.getChannel().force(false);
+        }
+        pendientes = 0;
+        ultimaSincronizacion = System.currentTimeMillis();
+    }
+
+    /**
+     * Lee el segmento rotado (si quedó de una compactación interrumpida) y
+     * luego la bitácora actual, entregando cada registro CSV al consumidor.
+     * Se lee por registros y no por líneas, así un campo entre comillas
+     * puede tener saltos de línea. Un registro con números inválidos se
+     * informa y se saltea sin cortar la lectura.
+     */
+    public synchronized void reproducir(Consumer<LectorCSV.Registro> consumidor,
+            Consumer<LectorCSV.Registro> consumidorRotado) throws IOException {
+        if (salida != null) {
+            salida.flush(); // el buffer puede haber bajado media línea
+        }
+        leerSegmento(getArchivoRotado(), consumidorRotado);
+        registros = leerSegmento(archivo, consumidor);
+        revisada = true;
+    }
+
+    /**
+     * Indica si hay algo escrito en disco (segmento actual o rotado), sin leerlo.
+     */
+    public synchronized boolean hayRegistrosGuardados() {
+        return archivo.length() > 0 || getArchivoRotado().length() > 0;
+    }
+
+    /**
+     * Cierra el segmento actual y lo renombra para compactarlo; las escrituras
+     * siguientes van a un segmento nuevo y vacío. Si todavía existe un
+     * segmento rotado (una compactación anterior no terminó), el actual se
+     * agrega a continuación en lugar de pisarlo.
+     */
+    public synchronized File rotar() throws IOException {
+        sincronizar();
+        cerrarSalida();
+        revisarSiEsNecesario();
+
+        File rotado = getArchivoRotado();
+        if (archivo.exists()) {
+            if (rotado.exists()) {
+                // el segmento actual se borra enseguida: lo copiado tiene que estar en disco antes
+                try (FileOutputStream salidaRotado = new FileOutputStream(rotado, true)) {
+                    Files.copy(archivo.toPath(), salidaRotado);
+                    salidaRotado.getChannel().force(true);
+                }
+                Files.delete(archivo.toPath());
+            } else if (!archivo.renameTo(rotado)) {
+                throw new IOException("No se pudo rotar la bitácora " + archivo);
+            }
+        }
+        registros = 0;
+        return rotado;
+    }
+
+    /**
+     * Descarta el segmento rotado una vez que su contenido quedó en la
+     * instantánea.
+     */
+    public synchronized void descartarRotado() {
+        File rotado = getArchivoRotado();
+        if (rotado.exists() && !rotado.delete()) {
+            System.err.println("No se pudo eliminar " + rotado);
+        }
+    }
+
+    public synchronized long getRegistros() {
+        return registros;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        tareaSincronizacion.cancel(false);
+        sincronizar();
+        cerrarSalida();
+    }
+
+    private File getArchivoRotado() {
+        return new File(archivo.getPath() + SUFIJO_ROTADO);
+    }
+
+    private void abrirSiEsNecesario() throws IOException {
+        if (salida == null) {
+            revisarSiEsNecesario();
+            salidaArchivo = new FileOutputStream(archivo, true);
+            salida = new BufferedOutputStream(salidaArchivo);
+        }
+    }
+
+    private void revisarSiEsNecesario() throws IOException {
+        if (!revisada) {
+            leerSegmento(getArchivoRotado(), registro -> { });
+            registros = leerSegmento(archivo, registro -> { });
+            revisada = true;
+        }
+    }
+
+    /**
+     * Entrega los registros completos del segmento y lo trunca después del
+     * último, descartando una línea que quedó cortada. Devuelve la cantidad
+     * de registros, contando los inválidos.
+     */
+    private static long leerSegmento(File segmento, Consumer<LectorCSV.Registro> consumidor) throws IOException {
+        if (!segmento.exists()) {
+            return 0;
+        }
+        long[] registros = new long[1];
+        long completo = LectorCSV.leerCompletos(segmento, registro -> {
+            registros[0]++;
+            try {
+                consumidor.accept(registro);
+            } catch (NumberFormatException e) {
+                System.err.println("Registro inválido en " + segmento + ": " + e.getMessage());
+            }
+        });
+        if (completo < segmento.length()) {
+            try (FileChannel canal = FileChannel.open(segmento.toPath(), StandardOpenOption.WRITE)) {
+                canal.truncate(completo);
+                canal.force(true);
+            }
+            System.err.println("Se descartó un registro incompleto al final de " + segmento);
+        }
+        return registros[0];
+    }
+
+    private void cerrarSalida() throws IOException {
+        if (salida != null) {
+            salida.close();
+            salida = null;
+            salidaArchivo = null;
+        }
+    }
+
+    private synchronized void sincronizarSiVencido() {
+        try {
+            if (pendientes > 0 && System.currentTimeMillis() - ultimaSincronizacion >= milisegundosPorLote) {
+                sincronizar();
+            }
+        } catch (IOException e) {
+            System.err.println("Error al sincronizar bitácora: " + e.getMessage());
+        }
+    }
+}
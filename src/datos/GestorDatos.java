@@ -2,28 +2,111 @@ package datos;
 
 import modelo.*;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Clase que gestiona la persistencia de datos en archivos de texto plano (CSV).
  * Mucho más simple que la serialización - solo lee y escribe líneas de texto.
+ *
+ * En formato BINARIO las instantáneas se guardan en archivos .bin columnares
+ * (ver SnapshotBinario) que se leen con memoria mapeada. Si todavía no existe
+ * el .bin de una entidad se importa su CSV; con un GestorDatos en formato CSV
+ * se puede volver a exportar.
+ *
+ * Guardado incremental: usuarios, publicaciones y anuncios tienen además una
+ * bitácora de cambios (usuarios.log, publicaciones.log, anuncios.log) donde
+ * guardarCambios* agrega solo los registros modificados, así guardar cuesta
+ * O(cambios) y no O(datos). Al cargar se aplican encima de la instantánea.
+ * Cuando una bitácora alcanza el tamaño de su instantánea se compacta: se
+ * rota, se copian los datos y la instantánea se reescribe en segundo plano.
  */
 public class GestorDatos {
+    public enum Formato {
+        CSV,
+        BINARIO
+    }
+
     private static final String DIRECTORIO_DATOS = "datos";
-    private static final String ARCHIVO_USUARIOS = DIRECTORIO_DATOS + "/usuarios.txt";
-    private static final String ARCHIVO_AMISTADES = DIRECTORIO_DATOS + "/amistades.txt";
-    private static final String ARCHIVO_PUBLICACIONES = DIRECTORIO_DATOS + "/publicaciones.txt";
-    private static final String ARCHIVO_ANUNCIOS = DIRECTORIO_DATOS + "/anuncios.txt";
-    private static final String ARCHIVO_INTERACCIONES = DIRECTORIO_DATOS + "/interacciones.txt";
+    private static final String ARCHIVO_USUARIOS = "usuarios.txt";
+    private static final String ARCHIVO_AMISTADES = "amistades.txt";
+    private static final String ARCHIVO_PUBLICACIONES = "publicaciones.txt";
+    private static final String ARCHIVO_ANUNCIOS = "anuncios.txt";
+    private static final String ARCHIVO_INTERACCIONES = "interacciones.txt";
+    private static final String ARCHIVO_BITACORA_INTERACCIONES = "interacciones.log";
+    private static final String ARCHIVO_CAMBIOS_USUARIOS = "usuarios.log";
+    private static final String ARCHIVO_CAMBIOS_PUBLICACIONES = "publicaciones.log";
+    private static final String ARCHIVO_CAMBIOS_ANUNCIOS = "anuncios.log";
+
+    // group commit de la bitácora: fsync cada N registros o cada T milisegundos
+    private static final int REGISTROS_POR_LOTE = 64;
+    private static final long MILISEGUNDOS_POR_LOTE = 50;
+    // la bitácora se compacta cuando alcanza el tamaño de la instantánea (costo amortizado O(1))
+    private static final int MINIMO_REGISTROS_COMPACTACION = 1000;
+    // interacciones.txt se parsea en paralelo por trozos de al menos este tamaño
+    private static final long MINIMO_BYTES_POR_TROZO = 4L << 20;
+    // un trozo se mapea entero, así que no puede pasar el límite de 2 GB de un MappedByteBuffer
+    private static final long MAXIMO_BYTES_POR_TROZO = 1L << 30;
+
+    // las instantáneas se reescriben en este hilo, de a una, sin frenar al que guarda
+    private static final ExecutorService COMPACTADOR = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "compactador-datos");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private final String directorio;
+    private final Formato formato;
+    private Bitacora bitacoraInteracciones;
+    private long registrosEnInstantanea;
+    // la última carga de interacciones falló o salteó registros; no es lo mismo que no tener datos
+    private boolean interaccionesConErrores;
+    // bitácoras de cambios por archivo; los servicios pueden cargar en paralelo
+    private final Map<String, Bitacora> bitacorasCambios = new ConcurrentHashMap<>();
+    // compactación en curso de cada bitácora
+    private final Map<Bitacora, Future<?>> compactaciones = new ConcurrentHashMap<>();
+
+    // escritura completa de una instantánea
+    private interface EscrituraInstantanea {
+        void escribir() throws IOException;
+    }
 
     public GestorDatos() {
+        this(Formato.CSV);
+    }
+
+    public GestorDatos(Formato formato) {
+        this(DIRECTORIO_DATOS, formato);
+    }
+
+    /**
+     * Gestor sobre otro directorio de datos (por ejemplo, uno generado con
+     * util.GeneradorDatos).
+     */
+    public GestorDatos(String directorio, Formato formato) {
+        this.directorio = directorio;
+        this.formato = formato;
         crearDirectorioSiNoExiste();
     }
 
+    public Formato getFormato() {
+        return formato;
+    }
+
     private void crearDirectorioSiNoExiste() {
-        File directorio = new File(DIRECTORIO_DATOS);
-        if (!directorio.exists()) {
-            directorio.mkdirs();
+        File carpeta = new File(directorio);
+        if (!carpeta.exists()) {
+            carpeta.mkdirs();
         }
     }
 
@@ -32,28 +115,71 @@ public class GestorDatos {
     /**
      * Guarda usuarios en formato CSV: id,nombre
      * Ejemplo: U001,Ana García
+     * Los campos con comas o comillas se escriben entre comillas.
      */
     public void guardarUsuarios(List<Usuario> usuarios) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(ARCHIVO_USUARIOS))) {
-            for (Usuario usuario : usuarios) {
-                // Formato: id,nombre
-                pw.println(usuario.getId() + "," + usuario.getNombre());
-            }
+        try {
+            reemplazarInstantanea(bitacoraCambios(ruta(ARCHIVO_CAMBIOS_USUARIOS)), () -> escribirUsuarios(usuarios));
+            System.out.println("Usuarios guardados exitosamente.");
+        } catch (IOException e) {
+            System.err.println("Error al guardar usuarios: " + e.getMessage());
+        }
+    }
 
-            // Guardar amistades en archivo separado
-            try (PrintWriter pwAmigos = new PrintWriter(new FileWriter(ARCHIVO_AMISTADES))) {
-                for (Usuario usuario : usuarios) {
-                    for (String amigoId : usuario.getAmigos()) {
-                        // Formato: usuarioId,amigoId
-                        pwAmigos.println(usuario.getId() + "," + amigoId);
+    /**
+     * Guarda solo los usuarios modificados: cada uno se agrega a usuarios.log
+     * como id,nombre,amigo1,amigo2,... y al cargar reemplaza al usuario con
+     * ese id. "todos" solo se recorre si toca compactar.
+     * Devuelve false si no se pudo escribir la bitácora.
+     */
+    public boolean guardarCambiosUsuarios(Collection<Usuario> modificados, Collection<Usuario> todos) {
+        try {
+            Bitacora cambios = bitacoraCambios(ruta(ARCHIVO_CAMBIOS_USUARIOS));
+            for (Usuario usuario : modificados) {
+                cambios.agregar(formatearCambioUsuario(usuario));
+            }
+            cambios.sincronizar();
+
+            if (requiereCompactacion(cambios, todos.size())) {
+                compactarEnSegundoPlano(cambios, () -> {
+                    List<Usuario> copia = new ArrayList<>(todos.size());
+                    for (Usuario usuario : todos) {
+                        Usuario usuarioCopia = new Usuario(usuario.getId(), usuario.getNombre());
+                        usuarioCopia.getAmigos().addAll(usuario.getAmigos());
+                        copia.add(usuarioCopia);
                     }
-                }
+                    return () -> escribirUsuarios(copia);
+                });
             }
-
-            System.out.println("Usuarios guardados exitosamente.");
+            System.out.println("Usuarios guardados exitosamente (" + modificados.size() + " cambios).");
+            return true;
         } catch (IOException e) {
             System.err.println("Error al guardar usuarios: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void escribirUsuarios(List<Usuario> usuarios) throws IOException {
+        if (formato == Formato.BINARIO) {
+            SnapshotBinario.guardarUsuarios(archivoBinario(ruta(ARCHIVO_USUARIOS)), usuarios);
+            return;
         }
+        escribirReemplazando(ruta(ARCHIVO_USUARIOS), pw -> {
+            for (Usuario usuario : usuarios) {
+                // Formato: id,nombre
+                pw.println(LectorCSV.escapar(usuario.getId()) + "," + LectorCSV.escapar(usuario.getNombre()));
+            }
+        });
+
+        // Guardar amistades en archivo separado
+        escribirReemplazando(ruta(ARCHIVO_AMISTADES), pw -> {
+            for (Usuario usuario : usuarios) {
+                for (String amigoId : usuario.getAmigos()) {
+                    // Formato: usuarioId,amigoId
+                    pw.println(LectorCSV.escapar(usuario.getId()) + "," + LectorCSV.escapar(amigoId));
+                }
+            }
+        });
     }
 
     /**
@@ -61,54 +187,102 @@ public class GestorDatos {
      */
     public List<Usuario> cargarUsuarios() {
         List<Usuario> usuarios = new ArrayList<>();
-        File archivo = new File(ARCHIVO_USUARIOS);
+        cargarUsuarios(usuarios::add);
+        return usuarios;
+    }
+
+    /**
+     * Entrega cada usuario, ya con sus amigos y los cambios de usuarios.log
+     * aplicados, al consumidor.
+     */
+    public void cargarUsuarios(Consumer<Usuario> consumidor) {
+        Bitacora cambios = bitacoraCambios(ruta(ARCHIVO_CAMBIOS_USUARIOS));
+        if (!cambios.hayRegistrosGuardados()) {
+            cargarInstantaneaUsuarios(consumidor);
+            return;
+        }
+
+        // cada cambio reemplaza al usuario con su id, o se agrega al final si es nuevo
+        List<Usuario> usuarios = new ArrayList<>();
+        Map<String, Integer> posicionPorId = new HashMap<>();
+        cargarInstantaneaUsuarios(usuario -> {
+            posicionPorId.putIfAbsent(usuario.getId(), usuarios.size());
+            usuarios.add(usuario);
+        });
+        reproducirCambios(cambios, "usuarios", registro -> {
+            if (registro.cantidadCampos() < 2) {
+                return;
+            }
+            Usuario usuario = new Usuario(registro.texto(0), registro.texto(1));
+            for (int i = 2; i < registro.cantidadCampos(); i++) {
+                usuario.getAmigos().add(registro.texto(i));
+            }
+            Integer posicion = posicionPorId.putIfAbsent(usuario.getId(), usuarios.size());
+            if (posicion == null) {
+                usuarios.add(usuario);
+            } else {
+                usuarios.set(posicion, usuario);
+            }
+        });
+        usuarios.forEach(consumidor);
+    }
+
+    /**
+     * En CSV las amistades están en otro archivo, así que los usuarios se
+     * retienen hasta leerlas; cada amistad se asigna con un mapa por id en
+     * O(1) (antes se buscaba el usuario recorriendo la lista).
+     */
+    private void cargarInstantaneaUsuarios(Consumer<Usuario> consumidor) {
+        File binario = archivoBinario(ruta(ARCHIVO_USUARIOS));
+        if (formato == Formato.BINARIO && binario.exists()) {
+            try {
+                SnapshotBinario.cargarUsuarios(binario, consumidor);
+            } catch (IOException e) {
+                System.err.println("Error al cargar usuarios: " + e.getMessage());
+            }
+            return;
+        }
 
+        File archivo = new File(ruta(ARCHIVO_USUARIOS));
         if (!archivo.exists()) {
-            return usuarios;
-        }
-
-        // Primero cargar usuarios
-        try (BufferedReader br = new BufferedReader(new FileReader(ARCHIVO_USUARIOS))) {
-            String linea;
-            while ((linea = br.readLine()) != null) {
-                String[] partes = linea.split(",");
-                if (partes.length >= 2) {
-                    String id = partes[0];
-                    String nombre = partes[1];
-                    usuarios.add(new Usuario(id, nombre));
+            return;
+        }
+
+        // Primero cargar usuarios; con ids repetidos las amistades van al primero
+        List<Usuario> usuarios = new ArrayList<>();
+        Map<String, Usuario> usuariosPorId = new HashMap<>();
+        try {
+            LectorCSV.leer(archivo, registro -> {
+                if (registro.cantidadCampos() >= 2) {
+                    Usuario usuario = new Usuario(registro.texto(0), registro.texto(1));
+                    usuarios.add(usuario);
+                    usuariosPorId.putIfAbsent(usuario.getId(), usuario);
                 }
-            }
+            });
         } catch (IOException e) {
             System.err.println("Error al cargar usuarios: " + e.getMessage());
-            return usuarios;
+            usuarios.forEach(consumidor);
+            return;
         }
 
         // Luego cargar amistades
-        File archivoAmistades = new File(ARCHIVO_AMISTADES);
+        File archivoAmistades = new File(ruta(ARCHIVO_AMISTADES));
         if (archivoAmistades.exists()) {
-            try (BufferedReader br = new BufferedReader(new FileReader(ARCHIVO_AMISTADES))) {
-                String linea;
-                while ((linea = br.readLine()) != null) {
-                    String[] partes = linea.split(",");
-                    if (partes.length >= 2) {
-                        String usuarioId = partes[0];
-                        String amigoId = partes[1];
-
-                        // Buscar el usuario y agregarle el amigo
-                        for (Usuario usuario : usuarios) {
-                            if (usuario.getId().equals(usuarioId)) {
-                                usuario.agregarAmigo(amigoId);
-                                break;
-                            }
+            try {
+                LectorCSV.leer(archivoAmistades, registro -> {
+                    if (registro.cantidadCampos() >= 2) {
+                        Usuario usuario = usuariosPorId.get(registro.texto(0));
+                        if (usuario != null) {
+                            usuario.agregarAmigo(registro.texto(1));
                         }
                     }
-                }
+                });
             } catch (IOException e) {
                 System.err.println("Error al cargar amistades: " + e.getMessage());
             }
         }
 
-        return usuarios;
+        usuarios.forEach(consumidor);
     }
 
     // ==================== PUBLICACIONES ====================
@@ -116,58 +290,111 @@ public class GestorDatos {
     /**
      * Guarda publicaciones en formato CSV:
      * id,autorId,contenido,fecha,likes,tamano,beneficio
+     * El contenido va siempre entre comillas, así puede tener comas.
      */
     public void guardarPublicaciones(List<PublicacionModelo> publicaciones) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(ARCHIVO_PUBLICACIONES))) {
-            for (PublicacionModelo pub : publicaciones) {
-                // Formato CSV simple
-                pw.println(pub.getId() + "," +
-                        pub.getAutorId() + "," +
-                        pub.getContenido().replace(",", ";") + "," + // Reemplazar comas en contenido
-                        pub.getFecha().getTime() + "," +
-                        pub.getLikes() + "," +
-                        pub.getTamano() + "," +
-                        pub.getBeneficio());
-            }
+        try {
+            reemplazarInstantanea(bitacoraCambios(ruta(ARCHIVO_CAMBIOS_PUBLICACIONES)),
+                    () -> escribirPublicaciones(publicaciones));
             System.out.println("Publicaciones guardadas exitosamente.");
         } catch (IOException e) {
             System.err.println("Error al guardar publicaciones: " + e.getMessage());
         }
     }
 
+    /**
+     * Guarda solo las publicaciones en las posiciones marcadas (nuevas o con
+     * likes cambiados): cada una se agrega a publicaciones.log como
+     * posicion,id,autorId,... Se identifican por posición y no por id porque
+     * puede haber ids repetidos. Devuelve false si no se pudo escribir.
+     */
+    public boolean guardarCambiosPublicaciones(List<PublicacionModelo> publicaciones, BitSet modificadas) {
+        try {
+            Bitacora cambios = bitacoraCambios(ruta(ARCHIVO_CAMBIOS_PUBLICACIONES));
+            for (int i = modificadas.nextSetBit(0); i >= 0; i = modificadas.nextSetBit(i + 1)) {
+                cambios.agregar(i + "," + formatearPublicacion(publicaciones.get(i)));
+            }
+            cambios.sincronizar();
+
+            if (requiereCompactacion(cambios, publicaciones.size())) {
+                compactarEnSegundoPlano(cambios, () -> {
+                    List<PublicacionModelo> copia = new ArrayList<>(publicaciones.size());
+                    for (PublicacionModelo pub : publicaciones) {
+                        copia.add(new PublicacionModelo(pub.getId(), pub.getAutorId(), pub.getContenido(),
+                                pub.getFecha(), pub.getLikes(), pub.getTamano(), pub.getBeneficio()));
+                    }
+                    return () -> escribirPublicaciones(copia);
+                });
+            }
+            System.out.println("Publicaciones guardadas exitosamente (" + modificadas.cardinality() + " cambios).");
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error al guardar publicaciones: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void escribirPublicaciones(List<PublicacionModelo> publicaciones) throws IOException {
+        if (formato == Formato.BINARIO) {
+            SnapshotBinario.guardarPublicaciones(archivoBinario(ruta(ARCHIVO_PUBLICACIONES)), publicaciones);
+            return;
+        }
+        escribirReemplazando(ruta(ARCHIVO_PUBLICACIONES), pw -> {
+            for (PublicacionModelo pub : publicaciones) {
+                pw.println(formatearPublicacion(pub));
+            }
+        });
+    }
+
     /**
      * Carga publicaciones desde archivo de texto.
      */
     public List<PublicacionModelo> cargarPublicaciones() {
         List<PublicacionModelo> publicaciones = new ArrayList<>();
-        File archivo = new File(ARCHIVO_PUBLICACIONES);
+        cargarPublicaciones(publicaciones::add);
+        return publicaciones;
+    }
+
+    /**
+     * Entrega cada publicación al consumidor, con los cambios de
+     * publicaciones.log aplicados.
+     */
+    public void cargarPublicaciones(Consumer<PublicacionModelo> consumidor) {
+        cargarConCambios(bitacoraCambios(ruta(ARCHIVO_CAMBIOS_PUBLICACIONES)), "publicaciones",
+                this::cargarInstantaneaPublicaciones, registro -> parsearPublicacion(registro, 1), consumidor);
+    }
+
+    /**
+     * Entrega cada publicación de la instantánea a medida que se lee.
+     * Los archivos viejos guardaban el contenido sin comillas y con las comas
+     * cambiadas por ';'; en ese caso se restauran como antes.
+     */
+    private void cargarInstantaneaPublicaciones(Consumer<PublicacionModelo> consumidor) {
+        File binario = archivoBinario(ruta(ARCHIVO_PUBLICACIONES));
+        if (formato == Formato.BINARIO && binario.exists()) {
+            try {
+                SnapshotBinario.cargarPublicaciones(binario, consumidor);
+            } catch (IOException e) {
+                System.err.println("Error al cargar publicaciones: " + e.getMessage());
+            }
+            return;
+        }
 
+        File archivo = new File(ruta(ARCHIVO_PUBLICACIONES));
         if (!archivo.exists()) {
-            return publicaciones;
-        }
-
-        try (BufferedReader br = new BufferedReader(new FileReader(ARCHIVO_PUBLICACIONES))) {
-            String linea;
-            while ((linea = br.readLine()) != null) {
-                String[] partes = linea.split(",");
-                if (partes.length >= 7) {
-                    String id = partes[0];
-                    String autorId = partes[1];
-                    String contenido = partes[2].replace(";", ","); // Restaurar comas
-                    long fechaMillis = Long.parseLong(partes[3]);
-                    int likes = Integer.parseInt(partes[4]);
-                    int tamano = Integer.parseInt(partes[5]);
-                    int beneficio = Integer.parseInt(partes[6]);
-
-                    Date fecha = new Date(fechaMillis);
-                    publicaciones.add(new PublicacionModelo(id, autorId, contenido, fecha, likes, tamano, beneficio));
+            return;
+        }
+
+        try {
+            LectorCSV.leer(archivo, registro -> {
+                PublicacionModelo publicacion = parsearPublicacion(registro, 0);
+                if (publicacion != null) {
+                    consumidor.accept(publicacion);
                 }
-            }
+            });
         } catch (IOException | NumberFormatException e) {
             System.err.println("Error al cargar publicaciones: " + e.getMessage());
         }
-
-        return publicaciones;
     }
 
     // ==================== ANUNCIOS ====================
@@ -176,61 +403,111 @@ public class GestorDatos {
      * Guarda anuncios en formato CSV: nombre,costo,alcance
      */
     public void guardarAnuncios(List<Anuncio> anuncios) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(ARCHIVO_ANUNCIOS))) {
-            for (Anuncio anuncio : anuncios) {
-                pw.println(anuncio.getNombre() + "," +
-                        anuncio.getCosto() + "," +
-                        anuncio.getAlcance());
-            }
+        try {
+            reemplazarInstantanea(bitacoraCambios(ruta(ARCHIVO_CAMBIOS_ANUNCIOS)), () -> escribirAnuncios(anuncios));
             System.out.println("Anuncios guardados exitosamente.");
         } catch (IOException e) {
             System.err.println("Error al guardar anuncios: " + e.getMessage());
         }
     }
 
+    /**
+     * Guarda solo los anuncios en las posiciones marcadas, como
+     * posicion,nombre,costo,alcance en anuncios.log. Los anuncios no cambian
+     * una vez creados, así que "todos" se copia sin duplicar cada anuncio.
+     * Devuelve false si no se pudo escribir.
+     */
+    public boolean guardarCambiosAnuncios(List<Anuncio> anuncios, BitSet modificados) {
+        try {
+            Bitacora cambios = bitacoraCambios(ruta(ARCHIVO_CAMBIOS_ANUNCIOS));
+            for (int i = modificados.nextSetBit(0); i >= 0; i = modificados.nextSetBit(i + 1)) {
+                cambios.agregar(i + "," + formatearAnuncio(anuncios.get(i)));
+            }
+            cambios.sincronizar();
+
+            if (requiereCompactacion(cambios, anuncios.size())) {
+                compactarEnSegundoPlano(cambios, () -> {
+                    List<Anuncio> copia = new ArrayList<>(anuncios);
+                    return () -> escribirAnuncios(copia);
+                });
+            }
+            System.out.println("Anuncios guardados exitosamente (" + modificados.cardinality() + " cambios).");
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error al guardar anuncios: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void escribirAnuncios(List<Anuncio> anuncios) throws IOException {
+        if (formato == Formato.BINARIO) {
+            SnapshotBinario.guardarAnuncios(archivoBinario(ruta(ARCHIVO_ANUNCIOS)), anuncios);
+            return;
+        }
+        escribirReemplazando(ruta(ARCHIVO_ANUNCIOS), pw -> {
+            for (Anuncio anuncio : anuncios) {
+                pw.println(formatearAnuncio(anuncio));
+            }
+        });
+    }
+
     /**
      * Carga anuncios desde archivo de texto.
      */
     public List<Anuncio> cargarAnuncios() {
         List<Anuncio> anuncios = new ArrayList<>();
-        File archivo = new File(ARCHIVO_ANUNCIOS);
+        cargarAnuncios(anuncios::add);
+        return anuncios;
+    }
+
+    public void cargarAnuncios(Consumer<Anuncio> consumidor) {
+        cargarConCambios(bitacoraCambios(ruta(ARCHIVO_CAMBIOS_ANUNCIOS)), "anuncios",
+                this::cargarInstantaneaAnuncios, registro -> parsearAnuncio(registro, 1), consumidor);
+    }
+
+    private void cargarInstantaneaAnuncios(Consumer<Anuncio> consumidor) {
+        File binario = archivoBinario(ruta(ARCHIVO_ANUNCIOS));
+        if (formato == Formato.BINARIO && binario.exists()) {
+            try {
+                SnapshotBinario.cargarAnuncios(binario, consumidor);
+            } catch (IOException e) {
+                System.err.println("Error al cargar anuncios: " + e.getMessage());
+            }
+            return;
+        }
 
+        File archivo = new File(ruta(ARCHIVO_ANUNCIOS));
         if (!archivo.exists()) {
-            return anuncios;
-        }
-
-        try (BufferedReader br = new BufferedReader(new FileReader(ARCHIVO_ANUNCIOS))) {
-            String linea;
-            while ((linea = br.readLine()) != null) {
-                String[] partes = linea.split(",");
-                if (partes.length >= 3) {
-                    String nombre = partes[0];
-                    int costo = Integer.parseInt(partes[1]);
-                    int alcance = Integer.parseInt(partes[2]);
-                    anuncios.add(new Anuncio(nombre, costo, alcance));
+            return;
+        }
+
+        try {
+            LectorCSV.leer(archivo, registro -> {
+                Anuncio anuncio = parsearAnuncio(registro, 0);
+                if (anuncio != null) {
+                    consumidor.accept(anuncio);
                 }
-            }
+            });
         } catch (IOException | NumberFormatException e) {
             System.err.println("Error al cargar anuncios: " + e.getMessage());
         }
-
-        return anuncios;
     }
 
     // ==================== INTERACCIONES (LIKES) ====================
 
     /**
-     * Guarda interacciones en formato CSV:
+     * Guarda todas las interacciones como instantánea CSV:
      * usuarioId,publicacionId,autorPublicacion,timestamp
+     * 
+     * Es también la compactación de la bitácora: el segmento actual se rota,
+     * se escribe la instantánea en un archivo temporal que reemplaza al
+     * anterior y recién entonces se descarta el segmento rotado.
+     * En formato BINARIO la instantánea es interacciones.bin.
      */
     public void guardarInteracciones(List<Interaccion> interacciones) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(ARCHIVO_INTERACCIONES))) {
-            for (Interaccion interaccion : interacciones) {
-                pw.println(interaccion.getUsuarioId() + "," +
-                        interaccion.getPublicacionId() + "," +
-                        interaccion.getAutorPublicacion() + "," +
-                        interaccion.getTimestamp());
-            }
+        try {
+            reemplazarInstantanea(bitacoraInteracciones(), () -> escribirInteracciones(interacciones));
+            registrosEnInstantanea = interacciones.size();
             System.out.println("Interacciones guardadas exitosamente.");
         } catch (IOException e) {
             System.err.println("Error al guardar interacciones: " + e.getMessage());
@@ -238,35 +515,412 @@ public class GestorDatos {
     }
 
     /**
-     * Carga interacciones desde archivo de texto.
+     * Igual que guardarInteracciones pero la instantánea se escribe en
+     * segundo plano sobre una copia de la lista; quien registra likes solo
+     * paga la rotación y la copia. Si ya hay una compactación en curso no
+     * hace nada: la bitácora sigue creciendo hasta el próximo intento.
+     */
+    public void compactarInteracciones(List<Interaccion> interacciones) {
+        try {
+            compactarEnSegundoPlano(bitacoraInteracciones(), () -> {
+                List<Interaccion> copia = new ArrayList<>(interacciones);
+                registrosEnInstantanea = copia.size();
+                return () -> escribirInteracciones(copia);
+            });
+        } catch (IOException e) {
+            System.err.println("Error al compactar interacciones: " + e.getMessage());
+        }
+    }
+
+    private void escribirInteracciones(List<Interaccion> interacciones) throws IOException {
+        if (formato == Formato.BINARIO) {
+            SnapshotBinario.guardarInteracciones(archivoBinario(ruta(ARCHIVO_INTERACCIONES)), interacciones);
+            return;
+        }
+        escribirReemplazando(ruta(ARCHIVO_INTERACCIONES), pw -> {
+            for (Interaccion interaccion : interacciones) {
+                pw.println(formatearInteraccion(interaccion));
+            }
+        });
+    }
+
+    /**
+     * Agrega una sola interacción al final de la bitácora, sin reescribir el
+     * historial.
+     */
+    public void agregarInteraccion(Interaccion interaccion) {
+        try {
+            bitacoraInteracciones().agregar(formatearInteraccion(interaccion));
+        } catch (IOException e) {
+            System.err.println("Error al registrar interacción: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indica si la bitácora creció lo suficiente como para compactarla en la
+     * instantánea con guardarInteracciones.
+     */
+    public boolean requiereCompactacionInteracciones() {
+        return requiereCompactacion(bitacoraInteracciones(), registrosEnInstantanea);
+    }
+
+    /**
+     * Carga interacciones desde la instantánea y reproduce la bitácora.
      */
     public List<Interaccion> cargarInteracciones() {
         List<Interaccion> interacciones = new ArrayList<>();
-        File archivo = new File(ARCHIVO_INTERACCIONES);
-
-        if (!archivo.exists()) {
-            return interacciones;
-        }
-
-        try (BufferedReader br = new BufferedReader(new FileReader(ARCHIVO_INTERACCIONES))) {
-            String linea;
-            while ((linea = br.readLine()) != null) {
-                String[] partes = linea.split(",");
-                if (partes.length >= 4) {
-                    String usuarioId = partes[0];
-                    String publicacionId = partes[1];
-                    String autorPublicacion = partes[2];
-                    long timestamp = Long.parseLong(partes[3]);
-
-                    Interaccion interaccion = new Interaccion(usuarioId, publicacionId, autorPublicacion);
-                    interaccion.setTimestamp(timestamp);
-                    interacciones.add(interaccion);
+        File archivo = new File(ruta(ARCHIVO_INTERACCIONES));
+        File binario = archivoBinario(ruta(ARCHIVO_INTERACCIONES));
+        interaccionesConErrores = false;
+
+        try {
+            if (formato == Formato.BINARIO && binario.exists()) {
+                SnapshotBinario.cargarInteracciones(binario, interacciones::add);
+            } else if (archivo.exists()) {
+                long invalidas = leerInteraccionesCSV(archivo, interacciones);
+                if (invalidas > 0) {
+                    System.err.println("Se saltearon " + invalidas + " interacciones inválidas de " + archivo);
+                    interaccionesConErrores = true;
                 }
             }
         } catch (IOException | NumberFormatException e) {
             System.err.println("Error al cargar interacciones: " + e.getMessage());
+            interaccionesConErrores = true;
+        }
+        registrosEnInstantanea = interacciones.size();
+
+        try {
+            reproducirBitacoraInteracciones(interacciones);
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error al reproducir bitácora de interacciones: " + e.getMessage());
         }
 
         return interacciones;
     }
+
+    /**
+     * Indica si la última cargarInteracciones no pudo leer todo: una lista
+     * vacía con errores no significa que no haya datos guardados.
+     */
+    public boolean cargaInteraccionesConErrores() {
+        return interaccionesConErrores;
+    }
+
+    /**
+     * Espera las compactaciones pendientes y sincroniza y cierra las bitácoras.
+     */
+    public void cerrar() {
+        for (Bitacora bitacora : new ArrayList<>(compactaciones.keySet())) {
+            esperarCompactacion(bitacora);
+        }
+        for (Bitacora cambios : bitacorasCambios.values()) {
+            try {
+                cambios.close();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar bitácora: " + e.getMessage());
+            }
+        }
+        bitacorasCambios.clear();
+        if (bitacoraInteracciones != null) {
+            try {
+                bitacoraInteracciones.close();
+            } catch (IOException e) {
+                System.err.println("Error al cerrar bitácora: " + e.getMessage());
+            }
+            bitacoraInteracciones = null;
+        }
+    }
+
+    /**
+     * Si el archivo es grande se divide en rangos de bytes que empiezan en
+     * comienzo de línea; cada núcleo parsea uno sobre su región mapeada y al
+     * final se concatenan en orden, así la lista queda igual que leyendo de
+     * corrido. Cortar en \n solo es seguro sin comillas (escapar las usa si un
+     * id tiene comas o saltos de línea): si algún trozo tiene una, se descarta
+     * lo leído y se lee de corrido. Los registros con números inválidos se
+     * saltean en los dos caminos; devuelve cuántos fueron.
+     */
+    private static long leerInteraccionesCSV(File archivo, List<Interaccion> interacciones) throws IOException {
+        long tamano = archivo.length();
+        long porNucleos = Math.min(Runtime.getRuntime().availableProcessors(), tamano / MINIMO_BYTES_POR_TROZO);
+        int trozos = (int) Math.max(porNucleos, tamano / MAXIMO_BYTES_POR_TROZO + 1);
+        if (trozos <= 1) {
+            return leerInteraccionesDeCorrido(archivo, interacciones);
+        }
+
+        LongAdder invalidas = new LongAdder();
+        List<List<Interaccion>> partes;
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            long[] limites = LectorCSV.dividirEnLineas(canal, trozos);
+            partes = IntStream.range(0, trozos).parallel()
+                    .mapToObj(i -> {
+                        List<Interaccion> parte = new ArrayList<>();
+                        try {
+                            ByteBuffer region = canal.map(FileChannel.MapMode.READ_ONLY, limites[i],
+                                    limites[i + 1] - limites[i]);
+                            if (LectorCSV.tieneComillas(region)) {
+                                return null;
+                            }
+                            LectorCSV.leer(region, registro -> {
+                                if (!agregarSalteandoInvalida(registro, parte::add)) {
+                                    invalidas.increment();
+                                }
+                            });
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        return parte;
+                    })
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (partes.contains(null)) {
+            return leerInteraccionesDeCorrido(archivo, interacciones);
+        }
+        for (List<Interaccion> parte : partes) {
+            interacciones.addAll(parte);
+        }
+        return invalidas.sum();
+    }
+
+    private static long leerInteraccionesDeCorrido(File archivo, List<Interaccion> interacciones) throws IOException {
+        long[] invalidas = new long[1];
+        LectorCSV.leer(archivo, registro -> {
+            if (!agregarSalteandoInvalida(registro, interacciones::add)) {
+                invalidas[0]++;
+            }
+        });
+        return invalidas[0];
+    }
+
+    private void reproducirBitacoraInteracciones(List<Interaccion> interacciones) throws IOException {
+        // Un segmento rotado solo existe si se cortó una compactación; puede que ya
+        // esté en la instantánea, así que se descartan los pares repetidos.
+        Set<String> clavesExistentes = new HashSet<>();
+        bitacoraInteracciones().reproducir(
+                registro -> agregarSiEsValida(registro, interacciones::add),
+                registro -> {
+                    if (clavesExistentes.isEmpty()) {
+                        for (Interaccion existente : interacciones) {
+                            clavesExistentes.add(claveInteraccion(existente));
+                        }
+                    }
+                    agregarSiEsValida(registro, interaccion -> {
+                        if (clavesExistentes.add(claveInteraccion(interaccion))) {
+                            interacciones.add(interaccion);
+                        }
+                    });
+                });
+    }
+
+    // ==================== BITÁCORAS DE CAMBIOS ====================
+
+    /**
+     * Carga la instantánea y le aplica los cambios "posicion,campos..." de la
+     * bitácora: cada uno reemplaza al elemento en esa posición o se agrega al
+     * final. Sin cambios guardados los elementos se entregan a medida que se
+     * leen; si hay, se retienen hasta aplicarlos.
+     */
+    private static <T> void cargarConCambios(Bitacora cambios, String entidad, Consumer<Consumer<T>> instantanea,
+            Function<LectorCSV.Registro, T> parsearCambio, Consumer<T> consumidor) {
+        if (!cambios.hayRegistrosGuardados()) {
+            instantanea.accept(consumidor);
+            return;
+        }
+
+        List<T> elementos = new ArrayList<>();
+        instantanea.accept(elementos::add);
+        reproducirCambios(cambios, entidad, registro -> {
+            T elemento = parsearCambio.apply(registro);
+            if (elemento == null) {
+                return;
+            }
+            int posicion = registro.entero(0);
+            if (posicion >= 0 && posicion < elementos.size()) {
+                elementos.set(posicion, elemento);
+            } else {
+                elementos.add(elemento);
+            }
+        });
+        elementos.forEach(consumidor);
+    }
+
+    // el segmento rotado se aplica igual que el actual: reaplicar un reemplazo es inofensivo
+    private static void reproducirCambios(Bitacora cambios, String entidad, Consumer<LectorCSV.Registro> aplicar) {
+        try {
+            cambios.reproducir(aplicar, aplicar);
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error al reproducir cambios de " + entidad + ": " + e.getMessage());
+        }
+    }
+
+    private static boolean requiereCompactacion(Bitacora cambios, long registrosEnInstantanea) {
+        return cambios.getRegistros() >= Math.max(MINIMO_REGISTROS_COMPACTACION, registrosEnInstantanea);
+    }
+
+    /**
+     * Instantánea completa en primer plano: espera una compactación en curso,
+     * rota la bitácora, escribe y recién entonces descarta el segmento rotado.
+     */
+    private void reemplazarInstantanea(Bitacora bitacora, EscrituraInstantanea escritura) throws IOException {
+        esperarCompactacion(bitacora);
+        bitacora.rotar();
+        escritura.escribir();
+        bitacora.descartarRotado();
+    }
+
+    /**
+     * Rota la bitácora y prepara la copia de los datos en el hilo actual (así
+     * la copia corresponde exactamente a lo rotado); la escritura de la
+     * instantánea corre en el hilo compactador. Si falla, el segmento rotado
+     * queda y se reproduce en el próximo inicio.
+     */
+    private void compactarEnSegundoPlano(Bitacora bitacora, Supplier<EscrituraInstantanea> preparar)
+            throws IOException {
+        Future<?> anterior = compactaciones.get(bitacora);
+        if (anterior != null && !anterior.isDone()) {
+            return;
+        }
+        bitacora.rotar();
+        EscrituraInstantanea escritura = preparar.get();
+        compactaciones.put(bitacora, COMPACTADOR.submit(() -> {
+            try {
+                escritura.escribir();
+                bitacora.descartarRotado();
+            } catch (IOException e) {
+                System.err.println("Error al compactar: " + e.getMessage());
+            }
+        }));
+    }
+
+    private void esperarCompactacion(Bitacora bitacora) {
+        Future<?> compactacion = compactaciones.remove(bitacora);
+        if (compactacion == null) {
+            return;
+        }
+        try {
+            compactacion.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error al compactar: " + e.getCause());
+        }
+    }
+
+    private Bitacora bitacoraCambios(String archivo) {
+        return bitacorasCambios.computeIfAbsent(archivo,
+                a -> new Bitacora(new File(a), REGISTROS_POR_LOTE, MILISEGUNDOS_POR_LOTE));
+    }
+
+    private String ruta(String archivo) {
+        return directorio + "/" + archivo;
+    }
+
+    // instantánea binaria de una entidad: el nombre del CSV con extensión .bin
+    private static File archivoBinario(String archivoCsv) {
+        return new File(archivoCsv.substring(0, archivoCsv.lastIndexOf('.')) + ".bin");
+    }
+
+    private Bitacora bitacoraInteracciones() {
+        if (bitacoraInteracciones == null) {
+            bitacoraInteracciones = new Bitacora(new File(ruta(ARCHIVO_BITACORA_INTERACCIONES)),
+                    REGISTROS_POR_LOTE, MILISEGUNDOS_POR_LOTE);
+        }
+        return bitacoraInteracciones;
+    }
+
+    // escribe en un .tmp que reemplaza al archivo de una vez: un corte a mitad no deja una instantánea rota.
+    // El .tmp se fuerza a disco antes del rename, porque después se descarta la bitácora que reemplaza
+    private static void escribirReemplazando(String archivo, Consumer<PrintWriter> escritura) throws IOException {
+        File temporal = new File(archivo + ".tmp");
+        try (FileOutputStream salida = new FileOutputStream(temporal);
+             PrintWriter pw = new PrintWriter(new BufferedWriter(new OutputStreamWriter(salida,
+                     StandardCharsets.UTF_8)))) {
+            escritura.accept(pw);
+            pw.flush();
+            if (pw.checkError()) {
+                throw new IOException("No se pudo escribir " + temporal);
+            }
+            salida.getChannel().force(true);
+        }
+        Archivos.reemplazar(temporal, new File(archivo));
+    }
+
+    private static String formatearCambioUsuario(Usuario usuario) {
+        StringBuilder linea = new StringBuilder();
+        linea.append(LectorCSV.escapar(usuario.getId())).append(',').append(LectorCSV.escapar(usuario.getNombre()));
+        for (String amigoId : usuario.getAmigos()) {
+            linea.append(',').append(LectorCSV.escapar(amigoId));
+        }
+        return linea.toString();
+    }
+
+    private static String formatearPublicacion(PublicacionModelo pub) {
+        return LectorCSV.escapar(pub.getId()) + "," +
+                LectorCSV.escapar(pub.getAutorId()) + "," +
+                LectorCSV.entreComillas(pub.getContenido()) + "," +
+                pub.getFecha().getTime() + "," +
+                pub.getLikes() + "," +
+                pub.getTamano() + "," +
+                pub.getBeneficio();
+    }
+
+    // id,autorId,contenido,fecha,likes,tamano,beneficio a partir del campo "desde"; null si está incompleto
+    private static PublicacionModelo parsearPublicacion(LectorCSV.Registro registro, int desde) {
+        if (registro.cantidadCampos() < desde + 7) {
+            return null;
+        }
+        String contenido = registro.texto(desde + 2);
+        if (!registro.entreComillas(desde + 2)) {
+            contenido = contenido.replace(";", ","); // Restaurar comas (formato anterior)
+        }
+        Date fecha = new Date(registro.largo(desde + 3));
+        return new PublicacionModelo(registro.texto(desde), registro.texto(desde + 1), contenido, fecha,
+                registro.entero(desde + 4), registro.entero(desde + 5), registro.entero(desde + 6));
+    }
+
+    private static String formatearAnuncio(Anuncio anuncio) {
+        return LectorCSV.escapar(anuncio.getNombre()) + "," + anuncio.getCosto() + "," + anuncio.getAlcance();
+    }
+
+    // nombre,costo,alcance a partir del campo "desde"; null si está incompleto
+    private static Anuncio parsearAnuncio(LectorCSV.Registro registro, int desde) {
+        if (registro.cantidadCampos() < desde + 3) {
+            return null;
+        }
+        return new Anuncio(registro.texto(desde), registro.entero(desde + 1), registro.entero(desde + 2));
+    }
+
+    private static String formatearInteraccion(Interaccion interaccion) {
+        return LectorCSV.escapar(interaccion.getUsuarioId()) + "," +
+                LectorCSV.escapar(interaccion.getPublicacionId()) + "," +
+                LectorCSV.escapar(interaccion.getAutorPublicacion()) + "," +
+                interaccion.getTimestamp();
+    }
+
+    private static String claveInteraccion(Interaccion interaccion) {
+        return interaccion.getUsuarioId() + "," + interaccion.getPublicacionId();
+    }
+
+    // como agregarSiEsValida, pero un timestamp inválido saltea el registro en lugar de cortar la lectura
+    private static boolean agregarSalteandoInvalida(LectorCSV.Registro registro, Consumer<Interaccion> consumidor) {
+        try {
+            agregarSiEsValida(registro, consumidor);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // usuarioId,publicacionId,autorPublicacion,timestamp; los registros incompletos se ignoran
+    private static void agregarSiEsValida(LectorCSV.Registro registro, Consumer<Interaccion> consumidor) {
+        if (registro.cantidadCampos() < 4) {
+            return;
+        }
+        Interaccion interaccion = new Interaccion(registro.texto(0), registro.texto(1), registro.texto(2));
+        interaccion.setTimestamp(registro.largo(3));
+        consumidor.accept(interaccion);
+    }
 }
@@ -0,0 +1,347 @@
+package datos;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Lector de CSV por streaming que recorre los bytes crudos del archivo.
+ * No usa String.split ni arma String[] por línea: cada registro se entrega
+ * al consumidor como una vista sobre un buffer reutilizado, y solo se crean
+ * Strings para los campos que se piden como texto (los números se parsean
+ * directo de los bytes).
+ *
+ * Soporta campos entre comillas dobles con comas, saltos de línea y comillas
+ * escapadas como "" (RFC 4180). Acepta fines de línea \n y \r\n y saltea las
+ * líneas vacías. Como ',', '"', '\r' y '\n' son ASCII, trabajar por bytes es
+ * seguro con UTF-8.
+ */
+public class LectorCSV {
+    private static final int TAMANO_LECTURA = 1 << 16;
+
+    /**
+     * Registro actual. Sus datos solo son válidos durante la llamada al
+     * consumidor: después el buffer se reutiliza para el siguiente.
+     */
+    public interface Registro {
+        int cantidadCampos();
+
+        String texto(int campo);
+
+        long largo(int campo);
+
+        int entero(int campo);
+
+        // true si el campo venía entre comillas en el archivo
+        boolean entreComillas(int campo);
+    }
+
+    /**
+     * Lee el archivo completo entregando cada registro al consumidor.
+     * Devuelve la cantidad de registros leídos.
+     */
+    public static long leer(File archivo, Consumer<Registro> consumidor) throws IOException {
+        try (InputStream entrada = new FileInputStream(archivo)) {
+            return leer(entrada, consumidor);
+        }
+    }
+
+    public static long leer(InputStream entrada, Consumer<Registro> consumidor) throws IOException {
+        Analizador analizador = new Analizador(consumidor);
+        procesarTodo(entrada, analizador);
+        analizador.terminar();
+        return analizador.registros;
+    }
+
+    /**
+     * Como leer(File, ...), pero un último registro sin fin de línea (una
+     * escritura cortada a la mitad) no se entrega. Devuelve cuántos bytes
+     * del comienzo del archivo ocupan los registros completos.
+     */
+    public static long leerCompletos(File archivo, Consumer<Registro> consumidor) throws IOException {
+        Analizador analizador = new Analizador(consumidor);
+        try (InputStream entrada = new FileInputStream(archivo)) {
+            procesarTodo(entrada, analizador);
+        }
+        return analizador.finCompleto;
+    }
+
+    private static void procesarTodo(InputStream entrada, Analizador analizador) throws IOException {
+        byte[] buffer = new byte[TAMANO_LECTURA];
+        int leidos;
+        while ((leidos = entrada.read(buffer)) > 0) {
+            analizador.procesar(buffer, 0, leidos);
+        }
+    }
+
+    /**
+     * Lee un texto ya en memoria (por ejemplo, una línea de la bitácora).
+     */
+    public static long leer(String texto, Consumer<Registro> consumidor) {
+        Analizador analizador = new Analizador(consumidor);
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        analizador.procesar(bytes, 0, bytes.length);
+        analizador.terminar();
+        return analizador.registros;
+    }
+
+    /**
+     * Lee los registros de una región de bytes, por ejemplo un trozo del
+     * archivo mapeado en memoria.
+     */
+    public static long leer(ByteBuffer region, Consumer<Registro> consumidor) {
+        Analizador analizador = new Analizador(consumidor);
+        byte[] buffer = new byte[Math.max(1, Math.min(TAMANO_LECTURA, region.remaining()))];
+        while (region.hasRemaining()) {
+            int cantidad = Math.min(buffer.length, region.remaining());
+            region.get(buffer, 0, cantidad);
+            analizador.procesar(buffer, 0, cantidad);
+        }
+        analizador.terminar();
+        return analizador.registros;
+    }
+
+    /**
+     * Divide el archivo en "cantidad" rangos de bytes parecidos que empiezan
+     * al comienzo de una línea, para leerlos en paralelo. Devuelve los
+     * cantidad+1 límites. Solo sirve si ningún campo tiene saltos de línea
+     * (un \n entre comillas se tomaría como corte): quien no pueda asegurarlo
+     * revisa cada rango con tieneComillas y, si hay, lee de corrido.
+     */
+    public static long[] dividirEnLineas(FileChannel canal, int cantidad) throws IOException {
+        long tamano = canal.size();
+        long[] limites = new long[cantidad + 1];
+        limites[cantidad] = tamano;
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for (int i = 1; i < cantidad; i++) {
+            long posicion = Math.max(limites[i - 1], tamano / cantidad * i);
+            limites[i] = siguienteInicioDeLinea(canal, posicion, buffer);
+        }
+        return limites;
+    }
+
+    /**
+     * Indica si la región tiene alguna comilla doble, sin mover su posición.
+     */
+    static boolean tieneComillas(ByteBuffer region) {
+        for (int i = region.position(); i < region.limit(); i++) {
+            if (region.get(i) == '"') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // primera posición >= desde que sigue a un \n (o el fin del archivo)
+    private static long siguienteInicioDeLinea(FileChannel canal, long desde, ByteBuffer buffer) throws IOException {
+        if (desde == 0) {
+            return 0;
+        }
+        long posicion = desde - 1;
+        while (true) {
+            buffer.clear();
+            int leidos = canal.read(buffer, posicion);
+            if (leidos <= 0) {
+                return canal.size();
+            }
+            for (int i = 0; i < leidos; i++) {
+                if (buffer.get(i) == '\n') {
+                    return posicion + i + 1;
+                }
+            }
+            posicion += leidos;
+        }
+    }
+
+    /**
+     * Escribe el valor como campo CSV: entre comillas solo si hace falta.
+     */
+    public static String escapar(String valor) {
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return entreComillas(valor);
+            }
+        }
+        return valor;
+    }
+
+    /**
+     * Escribe el valor siempre entre comillas, duplicando las comillas internas.
+     */
+    public static String entreComillas(String valor) {
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Máquina de estados sobre los bytes. El contenido de los campos (sin
+     * comillas y con "" ya convertido en ") se copia a un buffer del
+     * registro; cada campo es un rango [inicio, fin) de ese buffer.
+     */
+    private static class Analizador implements Registro {
+        private static final int INICIO_CAMPO = 0;
+        private static final int SIN_COMILLAS = 1;
+        private static final int CON_COMILLAS = 2;
+        private static final int COMILLA_EN_COMILLAS = 3; // se vio una " dentro de comillas: cierre o ""
+
+        private final Consumer<Registro> consumidor;
+        private byte[] datos = new byte[256];
+        private int largoDatos;
+        private int[] inicios = new int[16];
+        private int[] fines = new int[16];
+        private boolean[] comillas = new boolean[16];
+        private int campos;
+        private int estado = INICIO_CAMPO;
+        private boolean hayContenido; // la línea actual tiene al menos un byte
+        private long registros;
+        private long posicion; // bytes procesados
+        private long finCompleto; // bytes hasta el último \n fuera de comillas
+
+        Analizador(Consumer<Registro> consumidor) {
+            this.consumidor = consumidor;
+        }
+
+        void procesar(byte[] buffer, int desde, int hasta) {
+            for (int i = desde; i < hasta; i++) {
+                byte b = buffer[i];
+                posicion++;
+                switch (estado) {
+                    case CON_COMILLAS:
+                        if (b == '"') {
+                            estado = COMILLA_EN_COMILLAS;
+                        } else {
+                            agregarByte(b);
+                        }
+                        break;
+                    case COMILLA_EN_COMILLAS:
+                        if (b == '"') {
+                            agregarByte(b);
+                            estado = CON_COMILLAS;
+                            break;
+                        }
+                        estado = SIN_COMILLAS; // comilla de cierre; lo que siga hasta la coma va tal cual
+                        procesarFueraDeComillas(b);
+                        break;
+                    default:
+                        procesarFueraDeComillas(b);
+                }
+            }
+        }
+
+        private void procesarFueraDeComillas(byte b) {
+            if (b == ',') {
+                cerrarCampo();
+            } else if (b == '\n') {
+                terminarLinea();
+                finCompleto = posicion;
+            } else if (b == '\r') {
+                // se ignora: el \n que sigue termina la línea
+            } else if (b == '"' && estado == INICIO_CAMPO) {
+                comillas[campos] = true;
+                estado = CON_COMILLAS;
+                hayContenido = true;
+            } else {
+                if (estado == INICIO_CAMPO) {
+                    estado = SIN_COMILLAS;
+                }
+                agregarByte(b);
+            }
+        }
+
+        void terminar() {
+            if (hayContenido || campos > 0) {
+                terminarLinea();
+            }
+        }
+
+        private void agregarByte(byte b) {
+            if (largoDatos == datos.length) {
+                datos = Arrays.copyOf(datos, datos.length * 2);
+            }
+            datos[largoDatos++] = b;
+            hayContenido = true;
+        }
+
+        private void cerrarCampo() {
+            if (campos + 1 == inicios.length) {
+                inicios = Arrays.copyOf(inicios, inicios.length * 2);
+                fines = Arrays.copyOf(fines, fines.length * 2);
+                comillas = Arrays.copyOf(comillas, comillas.length * 2);
+            }
+            fines[campos] = largoDatos;
+            campos++;
+            inicios[campos] = largoDatos;
+            comillas[campos] = false;
+            estado = INICIO_CAMPO;
+            hayContenido = true;
+        }
+
+        private void terminarLinea() {
+            if (hayContenido) {
+                cerrarCampo();
+                registros++;
+                consumidor.accept(this);
+            }
+            campos = 0;
+            largoDatos = 0;
+            inicios[0] = 0;
+            comillas[0] = false;
+            estado = INICIO_CAMPO;
+            hayContenido = false;
+        }
+
+        @Override
+        public int cantidadCampos() {
+            return campos;
+        }
+
+        @Override
+        public String texto(int campo) {
+            return new String(datos, inicios[campo], fines[campo] - inicios[campo], StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public long largo(int campo) {
+            int i = inicios[campo];
+            int fin = fines[campo];
+            boolean negativo = i < fin && datos[i] == '-';
+            if (negativo) {
+                i++;
+            }
+            if (i == fin) {
+                throw new NumberFormatException("Campo numérico vacío: \"" + texto(campo) + "\"");
+            }
+            // se acumula en negativo, como Long.parseLong, para que entre Long.MIN_VALUE
+            long limite = negativo ? Long.MIN_VALUE : -Long.MAX_VALUE;
+            long valor = 0;
+            for (; i < fin; i++) {
+                int digito = datos[i] - '0';
+                if (digito < 0 || digito > 9) {
+                    throw new NumberFormatException("Campo numérico inválido: \"" + texto(campo) + "\"");
+                }
+                if (valor < limite / 10 || valor * 10 < limite + digito) {
+                    throw new NumberFormatException("Número fuera de rango: \"" + texto(campo) + "\"");
+                }
+                valor = valor * 10 - digito;
+            }
+            return negativo ? valor : -valor;
+        }
+
+        @Override
+        public int entero(int campo) {
+            long valor = largo(campo);
+            if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Entero fuera de rango: " + valor);
+            }
+            return (int) valor;
+        }
+
+        @Override
+        public boolean entreComillas(int campo) {
+            return comillas[campo];
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package datos;
+
+import modelo.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Instantánea binaria y columnar de una entidad (usuarios, publicaciones,
+ * anuncios o interacciones), pensada para arrancar rápido con muchos datos.
+ *
+ * Formato (big-endian):
+ * - cabecera: magia, versión, tipo, cantidad de registros, cantidad de cadenas, bytes de cadenas (long)
+ * - tabla de cadenas: el fin (int) de cada cadena y después todos los bytes UTF-8 juntos;
+ *   cada cadena distinta aparece una sola vez y los registros la referencian por índice
+ * - columnas: una por atributo, de ancho fijo (int o long), en el orden del registro
+ *
+ * La lectura mapea el archivo con FileChannel.map y lee las columnas
+ * directamente del mapeo: no hay parseo de texto, y cada id se decodifica
+ * una sola vez aunque aparezca en millones de registros.
+ */
+public class SnapshotBinario {
+    private static final int MAGIA = 0x52534231; // "RSB1"
+    private static final int VERSION = 1;
+    private static final int TAMANO_CABECERA = 5 * Integer.BYTES + Long.BYTES;
+
+    private static final int TIPO_USUARIOS = 1;
+    private static final int TIPO_PUBLICACIONES = 2;
+    private static final int TIPO_ANUNCIOS = 3;
+    private static final int TIPO_INTERACCIONES = 4;
+
+    // ==================== USUARIOS ====================
+
+    /**
+     * Columnas: id, nombre, inicio de sus amigos; al final la lista de todos
+     * los amigos concatenada (formato CSR, como GrafoCompacto).
+     */
+    public static void guardarUsuarios(File archivo, List<Usuario> usuarios) throws IOException {
+        TablaCadenas tabla = new TablaCadenas();
+        int n = usuarios.size();
+        int[] ids = new int[n];
+        int[] nombres = new int[n];
+        int[] inicios = new int[n + 1];
+        List<Integer> amigos = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Usuario usuario = usuarios.get(i);
+            ids[i] = tabla.referencia(usuario.getId());
+            nombres[i] = tabla.referencia(usuario.getNombre());
+            inicios[i] = amigos.size();
+            for (String amigo : usuario.getAmigos()) {
+                amigos.add(tabla.referencia(amigo));
+            }
+        }
+        inicios[n] = amigos.size();
+
+        escribir(archivo, TIPO_USUARIOS, n, tabla, ids, nombres, inicios,
+                amigos.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Entrega cada usuario (con sus amigos) al consumidor; devuelve la cantidad.
+     */
+    public static int cargarUsuarios(File archivo, Consumer<Usuario> consumidor) throws IOException {
+        try (Lector lector = new Lector(archivo, TIPO_USUARIOS)) {
+            int n = lector.registros;
+            IntBuffer ids = lector.enteros(n);
+            IntBuffer nombres = lector.enteros(n);
+            IntBuffer inicios = lector.enteros(n + 1);
+            IntBuffer amigos = lector.enteros(inicios.get(n));
+
+            for (int i = 0; i < n; i++) {
+                Usuario usuario = new Usuario(lector.cadena(ids.get(i)), lector.cadena(nombres.get(i)));
+                for (int k = inicios.get(i); k < inicios.get(i + 1); k++) {
+                    usuario.agregarAmigo(lector.cadena(amigos.get(k)));
+                }
+                consumidor.accept(usuario);
+            }
+            return n;
+        }
+    }
+
+    // ==================== PUBLICACIONES ====================
+
+    public static void guardarPublicaciones(File archivo, List<PublicacionModelo> publicaciones) throws IOException {
+        TablaCadenas tabla = new TablaCadenas();
+        int n = publicaciones.size();
+        int[] ids = new int[n];
+        int[] autores = new int[n];
+        int[] contenidos = new int[n];
+        long[] fechas = new long[n];
+        int[] likes = new int[n];
+        int[] tamanos = new int[n];
+        int[] beneficios = new int[n];
+        for (int i = 0; i < n; i++) {
+            PublicacionModelo pub = publicaciones.get(i);
+            ids[i] = tabla.referencia(pub.getId());
+            autores[i] = tabla.referencia(pub.getAutorId());
+            contenidos[i] = tabla.referencia(pub.getContenido());
+            fechas[i] = pub.getFecha().getTime();
+            likes[i] = pub.getLikes();
+            tamanos[i] = pub.getTamano();
+            beneficios[i] = pub.getBeneficio();
+        }
+
+        escribir(archivo, TIPO_PUBLICACIONES, n, tabla, ids, autores, contenidos, fechas, likes, tamanos, beneficios);
+    }
+
+    public static int cargarPublicaciones(File archivo, Consumer<PublicacionModelo> consumidor)
+            throws IOException {
+        try (Lector lector = new Lector(archivo, TIPO_PUBLICACIONES)) {
+            int n = lector.registros;
+            IntBuffer ids = lector.enteros(n);
+            IntBuffer autores = lector.enteros(n);
+            IntBuffer contenidos = lector.enteros(n);
+            LongBuffer fechas = lector.largos(n);
+            IntBuffer likes = lector.enteros(n);
+            IntBuffer tamanos = lector.enteros(n);
+            IntBuffer beneficios = lector.enteros(n);
+
+            for (int i = 0; i < n; i++) {
+                consumidor.accept(new PublicacionModelo(lector.cadena(ids.get(i)), lector.cadena(autores.get(i)),
+                        lector.cadena(contenidos.get(i)), new Date(fechas.get(i)), likes.get(i), tamanos.get(i),
+                        beneficios.get(i)));
+            }
+            return n;
+        }
+    }
+
+    // ==================== ANUNCIOS ====================
+
+    public static void guardarAnuncios(File archivo, List<Anuncio> anuncios) throws IOException {
+        TablaCadenas tabla = new TablaCadenas();
+        int n = anuncios.size();
+        int[] nombres = new int[n];
+        int[] costos = new int[n];
+        int[] alcances = new int[n];
+        for (int i = 0; i < n; i++) {
+            Anuncio anuncio = anuncios.get(i);
+            nombres[i] = tabla.referencia(anuncio.getNombre());
+            costos[i] = anuncio.getCosto();
+            alcances[i] = anuncio.getAlcance();
+        }
+
+        escribir(archivo, TIPO_ANUNCIOS, n, tabla, nombres, costos, alcances);
+    }
+
+    public static int cargarAnuncios(File archivo, Consumer<Anuncio> consumidor) throws IOException {
+        try (Lector lector = new Lector(archivo, TIPO_ANUNCIOS)) {
+            int n = lector.registros;
+            IntBuffer nombres = lector.enteros(n);
+            IntBuffer costos = lector.enteros(n);
+            IntBuffer alcances = lector.enteros(n);
+
+            for (int i = 0; i < n; i++) {
+                consumidor.accept(new Anuncio(lector.cadena(nombres.get(i)), costos.get(i), alcances.get(i)));
+            }
+            return n;
+        }
+    }
+
+    // ==================== INTERACCIONES ====================
+
+    public static void guardarInteracciones(File archivo, List<Interaccion> interacciones) throws IOException {
+        TablaCadenas tabla = new TablaCadenas();
+        int n = interacciones.size();
+        int[] usuarios = new int[n];
+        int[] publicaciones = new int[n];
+        int[] autores = new int[n];
+        long[] timestamps = new long[n];
+        for (int i = 0; i < n; i++) {
+            Interaccion interaccion = interacciones.get(i);
+            usuarios[i] = tabla.referencia(interaccion.getUsuarioId());
+            publicaciones[i] = tabla.referencia(interaccion.getPublicacionId());
+            autores[i] = tabla.referencia(interaccion.getAutorPublicacion());
+            timestamps[i] = interaccion.getTimestamp();
+        }
+
+        escribir(archivo, TIPO_INTERACCIONES, n, tabla, usuarios, publicaciones, autores, timestamps);
+    }
+
+    public static int cargarInteracciones(File archivo, Consumer<Interaccion> consumidor) throws IOException {
+        try (Lector lector = new Lector(archivo, TIPO_INTERACCIONES)) {
+            int n = lector.registros;
+            IntBuffer usuarios = lector.enteros(n);
+            IntBuffer publicaciones = lector.enteros(n);
+            IntBuffer autores = lector.enteros(n);
+            LongBuffer timestamps = lector.largos(n);
+
+            for (int i = 0; i < n; i++) {
+                Interaccion interaccion = new Interaccion(lector.cadena(usuarios.get(i)),
+                        lector.cadena(publicaciones.get(i)), lector.cadena(autores.get(i)));
+                interaccion.setTimestamp(timestamps.get(i));
+                consumidor.accept(interaccion);
+            }
+            return n;
+        }
+    }
+
+    // ==================== FORMATO ====================
+
+    /**
+     * Escribe cabecera, tabla de cadenas y columnas (int[] o long[]) en un
+     * temporal que se fuerza a disco y después reemplaza al archivo de forma
+     * atómica (quien llama descarta enseguida la bitácora que reemplaza).
+     */
+    private static void escribir(File archivo, int tipo, int registros, TablaCadenas tabla, Object... columnas)
+            throws IOException {
+        File temporal = new File(archivo.getPath() + ".tmp");
+        try (FileOutputStream archivoSalida = new FileOutputStream(temporal);
+             DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(archivoSalida, 1 << 16))) {
+            salida.writeInt(MAGIA);
+            salida.writeInt(VERSION);
+            salida.writeInt(tipo);
+            salida.writeInt(registros);
+            salida.writeInt(tabla.cadenas.size());
+            salida.writeLong(tabla.bytesTotales);
+
+            long fin = 0;
+            for (byte[] cadena : tabla.cadenas) {
+                fin += cadena.length;
+                salida.writeInt((int) fin);
+            }
+            for (byte[] cadena : tabla.cadenas) {
+                salida.write(cadena);
+            }
+
+            for (Object columna : columnas) {
+                if (columna instanceof int[]) {
+                    for (int valor : (int[]) columna) {
+                        salida.writeInt(valor);
+                    }
+                } else {
+                    for (long valor : (long[]) columna) {
+                        salida.writeLong(valor);
+                    }
+                }
+            }
+            salida.flush();
+            archivoSalida.getChannel().force(true);
+        }
+        Archivos.reemplazar(temporal, archivo);
+    }
+
+    // cadenas distintas en orden de aparición; -1 representa null
+    private static class TablaCadenas {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<byte[]> cadenas = new ArrayList<>();
+        private long bytesTotales;
+
+        int referencia(String cadena) {
+            if (cadena == null) {
+                return -1;
+            }
+            Integer indice = indices.get(cadena);
+            if (indice == null) {
+                byte[] bytes = cadena.getBytes(StandardCharsets.UTF_8);
+                if (bytesTotales + bytes.length > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("La tabla de cadenas supera los 2 GB");
+                }
+                indice = cadenas.size();
+                indices.put(cadena, indice);
+                cadenas.add(bytes);
+                bytesTotales += bytes.length;
+            }
+            return indice;
+        }
+    }
+
+    /**
+     * Recorre el archivo en orden: cada columna se mapea por separado, así
+     * ninguna región supera el límite de 2 GB de un MappedByteBuffer aunque
+     * el archivo completo sí lo haga.
+     */
+    private static class Lector implements Closeable {
+        private final FileChannel canal;
+        private final int registros;
+        private final String[] cadenas;
+        private long posicion;
+
+        Lector(File archivo, int tipoEsperado) throws IOException {
+            this.canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ);
+            try {
+                ByteBuffer cabecera = mapear(TAMANO_CABECERA);
+                if (cabecera.getInt() != MAGIA || cabecera.getInt() != VERSION || cabecera.getInt() != tipoEsperado) {
+                    throw new IOException("Instantánea binaria inválida: " + archivo);
+                }
+                this.registros = cabecera.getInt();
+                int cantidadCadenas = cabecera.getInt();
+                long bytesCadenas = cabecera.getLong();
+
+                IntBuffer fines = enteros(cantidadCadenas);
+                ByteBuffer bytes = mapear(bytesCadenas);
+                this.cadenas = new String[cantidadCadenas];
+                byte[] auxiliar = new byte[64];
+                int inicio = 0;
+                for (int i = 0; i < cantidadCadenas; i++) {
+                    int largo = fines.get(i) - inicio;
+                    if (largo > auxiliar.length) {
+                        auxiliar = new byte[Math.max(largo, auxiliar.length * 2)];
+                    }
+                    bytes.get(inicio, auxiliar, 0, largo);
+                    cadenas[i] = new String(auxiliar, 0, largo, StandardCharsets.UTF_8);
+                    inicio += largo;
+                }
+            } catch (IOException | RuntimeException e) {
+                canal.close();
+                throw e;
+            }
+        }
+
+        String cadena(int referencia) {
+            return referencia < 0 ? null : cadenas[referencia];
+        }
+
+        IntBuffer enteros(int cantidad) throws IOException {
+            return mapear((long) cantidad * Integer.BYTES).asIntBuffer();
+        }
+
+        LongBuffer largos(int cantidad) throws IOException {
+            return mapear((long) cantidad * Long.BYTES).asLongBuffer();
+        }
+
+        private ByteBuffer mapear(long longitud) throws IOException {
+            if (posicion + longitud > canal.size()) {
+                throw new EOFException("Instantánea binaria truncada");
+            }
+            ByteBuffer region = canal.map(FileChannel.MapMode.READ_ONLY, posicion, longitud);
+            posicion += longitud;
+            return region;
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+}
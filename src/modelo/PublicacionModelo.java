@@ -42,7 +42,16 @@ public class PublicacionModelo implements Comparable<PublicacionModelo> {
      * Calcula la relevancia ponderando likes y antigüedad.
      */
     public double getRelevancia() {
-        long antiguedadDias = (new Date().getTime() - fecha.getTime()) / (1000 * 60 * 60 * 24);
+        return getRelevancia(System.currentTimeMillis());
+    }
+
+    /**
+     * Relevancia respecto de un instante dado (en milisegundos). Permite
+     * puntuar muchas publicaciones con el mismo "ahora" sin crear un Date
+     * por cada una.
+     */
+    public double getRelevancia(long ahora) {
+        long antiguedadDias = (ahora - fecha.getTime()) / (1000 * 60 * 60 * 24);
         return likes - antiguedadDias * 0.5;
     }
 
@@ -2,6 +2,7 @@ package pruebas;
 
 import algoritmos.AsignacionPublicidad;
 import algoritmos.AsignacionPublicidad.ResultadoAsignacion;
+import algoritmos.MotorMochila;
 import modelo.Anuncio;
 import java.util.*;
 
@@ -17,5 +18,27 @@ public class TestAsignacionPublicidad {
 
         ResultadoAsignacion res = AsignacionPublicidad.maxAlcance(anuncios, presupuesto);
         res.mostrarResultado(presupuesto);
+        if (!res.esExacto()) {
+            System.err.println("ERROR: el presupuesto chico se resolvió con " + res.getEstrategia());
+        }
+
+        // modo compacto (un solo arreglo + bitset): mismo alcance y misma selección
+        ResultadoAsignacion compacto = AsignacionPublicidad.maxAlcanceCompacto(anuncios, presupuesto);
+        if (compacto.getAlcanceMaximo() != res.getAlcanceMaximo()
+                || !compacto.getAnunciosSeleccionados().equals(res.getAnunciosSeleccionados())) {
+            System.err.println("ERROR: el modo compacto dio " + compacto.getAlcanceMaximo());
+        }
+
+        // muchos anuncios y un presupuesto enorme: AUTOMATICA cae en VORAZ y el resultado lo tiene que decir
+        Random random = new Random(10);
+        List<Anuncio> muchos = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            muchos.add(new Anuncio("Anuncio " + i, 1 + random.nextInt(1_000_000), 1 + random.nextInt(100_000)));
+        }
+        ResultadoAsignacion aproximado = AsignacionPublicidad.maxAlcance(muchos, 2_000_000_000);
+        if (aproximado.getEstrategia() != MotorMochila.Estrategia.VORAZ || aproximado.esExacto()) {
+            System.err.println("ERROR: el presupuesto enorme se resolvió con " + aproximado.getEstrategia()
+                    + " (exacto: " + aproximado.esExacto() + ")");
+        }
     }
 }
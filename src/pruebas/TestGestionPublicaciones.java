@@ -20,6 +20,14 @@ public class TestGestionPublicaciones {
             @Override public void guardarPublicaciones(List<PublicacionModelo> pubs) {
                 System.out.println("Guardadas " + pubs.size() + " publicaciones.");
             }
+            @Override public boolean guardarCambiosPublicaciones(List<PublicacionModelo> pubs, BitSet cambios) {
+                System.out.println("Guardados cambios en las posiciones " + cambios);
+                // solo la P4 agregada (posición 4) y la P3 con likes nuevos (posición 2)
+                if (!cambios.equals(BitSet.valueOf(new long[] {(1 << 2) | (1 << 4)}))) {
+                    System.err.println("ERROR: se esperaban cambios solo en {2, 4}");
+                }
+                return true;
+            }
         };
 
         ServicioPublicaciones servicio = new ServicioPublicaciones(gestor);
@@ -35,12 +43,72 @@ public class TestGestionPublicaciones {
             System.out.println(p.getId() + " | " + p.getFecha());
         }
 
+        // Vista cronológica paginada (de a 2): mismas publicaciones y mismo orden
+        List<PublicacionModelo> paginadas = new ArrayList<>();
+        String cursor = null;
+        do {
+            var pagina = servicio.obtenerPaginaCronologica(cursor, 2);
+            paginadas.addAll(pagina.getElementos());
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null);
+        if (!paginadas.equals(servicio.obtenerVistaCronologica())) {
+            System.err.println("ERROR: la paginación no coincide con la vista cronológica");
+        }
+
+        // Feed de los autores 3 y 5 (de a 1): la vista cronológica filtrada por autor
+        List<PublicacionModelo> feed = new ArrayList<>();
+        cursor = null;
+        do {
+            var pagina = servicio.obtenerFeed(Arrays.asList("3", "5"), ServicioPublicaciones.OrdenFeed.CRONOLOGICO,
+                    cursor, 1);
+            feed.addAll(pagina.getElementos());
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null);
+        List<PublicacionModelo> esperado = new ArrayList<>(servicio.obtenerVistaCronologica());
+        esperado.removeIf(p -> !p.getAutorId().equals("3") && !p.getAutorId().equals("5"));
+        if (!feed.equals(esperado)) {
+            System.err.println("ERROR: el feed no coincide con la vista cronológica filtrada");
+        }
+
         // Top por relevancia (k=2)
         System.out.println("\n--- Top por relevancia (2) ---");
         for (var p : servicio.obtenerTopPorRelevancia(2)) {
             System.out.println(p.getId());
         }
 
+        // Top mayor que la cantidad de publicaciones: todas, de mayor a menor relevancia
+        List<PublicacionModelo> todas = servicio.obtenerTopPorRelevancia(10);
+        for (int i = 1; i < todas.size(); i++) {
+            if (todas.get(i - 1).getRelevancia() < todas.get(i).getRelevancia()) {
+                System.err.println("ERROR: el top no está ordenado por relevancia");
+            }
+        }
+        if (todas.size() != servicio.obtenerTodasLasPublicaciones().size()) {
+            System.err.println("ERROR: el top devolvió " + todas.size() + " publicaciones");
+        }
+
+        // Ranking mantenido por el servicio: mismas publicaciones que el cálculo completo
+        List<String> ranking = new ArrayList<>();
+        servicio.obtenerRankingRelevancia(2).forEach(p -> ranking.add(p.getId()));
+        List<String> calculado = new ArrayList<>();
+        servicio.obtenerTopPorRelevancia(2).forEach(p -> calculado.add(p.getId()));
+        if (!ranking.equals(calculado)) {
+            System.err.println("ERROR: el ranking no coincide con el top calculado");
+        }
+
+        // Un like la reubica en el ranking
+        PublicacionModelo p3 = servicio.obtenerPublicacion("P3");
+        servicio.actualizarLikes(p3, 200);
+        if (servicio.obtenerRankingRelevancia(1).get(0) != p3) {
+            System.err.println("ERROR: P3 debería encabezar el ranking");
+        }
+
+        // Guardar solo lo que cambió (simulado)
+        servicio.guardarCambiosPublicaciones();
+        if (servicio.cantidadPublicaciones() != 5) {
+            System.err.println("ERROR: se esperaban 5 publicaciones");
+        }
+
         // Guardar (simulado)
         servicio.guardarPublicaciones();
     }
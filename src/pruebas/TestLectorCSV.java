@@ -0,0 +1,190 @@
+package pruebas;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import datos.GestorDatos;
+import datos.LectorCSV;
+import modelo.PublicacionModelo;
+
+public class TestLectorCSV {
+    public static void main(String[] args) {
+        try {
+            verificarComillas();
+            verificarFinesDeLinea();
+            verificarFormatoAnterior();
+            verificarNumeros();
+            verificarLecturaPorTrozos();
+            System.out.println("LectorCSV verificado.");
+        } catch (Exception e) {
+            System.err.println("ERROR: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // comas y saltos de línea entre comillas, y "" como comilla escapada
+    private static void verificarComillas() {
+        String texto = "a,\"b,c\",\"línea 1\nlínea 2\",\"dijo \"\"hola\"\"\"\n"
+                + "\"\",sin comillas\n";
+        List<List<String>> registros = new ArrayList<>();
+        List<Boolean> comillas = new ArrayList<>();
+        LectorCSV.leer(texto, registro -> {
+            registros.add(campos(registro));
+            for (int i = 0; i < registro.cantidadCampos(); i++) {
+                comillas.add(registro.entreComillas(i));
+            }
+        });
+        esperar("comillas", registros, List.of(
+                List.of("a", "b,c", "línea 1\nlínea 2", "dijo \"hola\""),
+                List.of("", "sin comillas")));
+        esperar("campos entre comillas", comillas, List.of(false, true, true, true, true, false));
+
+        // lo que escribe escapar se vuelve a leer igual
+        String valor = "x, \"y\"\r\nz";
+        List<List<String>> ida = leer(LectorCSV.escapar(valor) + "," + LectorCSV.entreComillas("simple"));
+        esperar("escapar", ida, List.of(List.of(valor, "simple")));
+    }
+
+    // \r\n, líneas vacías (que se saltean) y un último campo vacío
+    private static void verificarFinesDeLinea() {
+        esperar("fines de línea", leer("x,y\r\n\r\n\nz,\r\nw"), List.of(
+                List.of("x", "y"),
+                List.of("z", ""),
+                List.of("w")));
+        esperar("solo una coma", leer(",\n"), List.of(List.of("", "")));
+        esperar("texto vacío", leer("\r\n\n"), List.of());
+    }
+
+    // los archivos viejos tenían el contenido sin comillas y las comas cambiadas por ';'
+    private static void verificarFormatoAnterior() throws IOException {
+        List<Boolean> comillas = new ArrayList<>();
+        List<List<String>> registros = new ArrayList<>();
+        LectorCSV.leer("P1,U1,hola; mundo,0,5,1,1\n", registro -> {
+            registros.add(campos(registro));
+            comillas.add(registro.entreComillas(2));
+        });
+        esperar("formato anterior", registros, List.of(List.of("P1", "U1", "hola; mundo", "0", "5", "1", "1")));
+        esperar("formato anterior sin comillas", comillas, List.of(false));
+
+        File directorio = Files.createTempDirectory("lectorcsv").toFile();
+        File archivo = new File(directorio, "publicaciones.txt");
+        try {
+            try (PrintWriter pw = new PrintWriter(archivo, StandardCharsets.UTF_8)) {
+                pw.print("P1,U1,hola; mundo,1000,5,1,1\n");
+                pw.print("P2,U2,\"con; punto y coma\",2000,7,1,1\n");
+            }
+            GestorDatos gestor = new GestorDatos(directorio.getPath(), GestorDatos.Formato.CSV);
+            List<String> contenidos = new ArrayList<>();
+            for (PublicacionModelo publicacion : gestor.cargarPublicaciones()) {
+                contenidos.add(publicacion.getContenido());
+            }
+            gestor.cerrar();
+            esperar("contenido restaurado", contenidos, List.of("hola, mundo", "con; punto y coma"));
+        } finally {
+            for (File hijo : directorio.listFiles()) {
+                hijo.delete();
+            }
+            directorio.delete();
+        }
+    }
+
+    // largo y entero aceptan todo el rango y fallan como Long.parseLong / Integer.parseInt al pasarse
+    private static void verificarNumeros() {
+        String texto = Long.MAX_VALUE + "," + Long.MIN_VALUE + ",-0,007," + Integer.MIN_VALUE + "\n";
+        LectorCSV.leer(texto, registro -> {
+            esperar("largo máximo", registro.largo(0), Long.MAX_VALUE);
+            esperar("largo mínimo", registro.largo(1), Long.MIN_VALUE);
+            esperar("menos cero", registro.largo(2), 0L);
+            esperar("ceros a la izquierda", registro.entero(3), 7);
+            esperar("entero mínimo", registro.entero(4), Integer.MIN_VALUE);
+        });
+
+        String[] invalidos = {
+            "9223372036854775808", "-9223372036854775809", "99999999999999999999", "18446744073709551616",
+            "", "-", "1a", " 1", "+1"
+        };
+        for (String invalido : invalidos) {
+            LectorCSV.leer(LectorCSV.entreComillas(invalido), registro -> {
+                try {
+                    long valor = registro.largo(0);
+                    System.err.println("ERROR: \"" + invalido + "\" se leyó como " + valor);
+                } catch (NumberFormatException e) {
+                    // esperado
+                }
+            });
+        }
+        LectorCSV.leer("2147483648\n", registro -> {
+            try {
+                int valor = registro.entero(0);
+                System.err.println("ERROR: 2147483648 se leyó como el entero " + valor);
+            } catch (NumberFormatException e) {
+                // esperado
+            }
+        });
+    }
+
+    // dividirEnLineas + leer(ByteBuffer) por trozos mapeados da lo mismo que la lectura secuencial
+    private static void verificarLecturaPorTrozos() throws IOException {
+        File archivo = File.createTempFile("lectorcsv", ".csv");
+        archivo.deleteOnExit();
+        Random random = new Random(18);
+        try (PrintWriter pw = new PrintWriter(archivo, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 20_000; i++) {
+                String texto = ("texto, \"" + i + "\" ñandú").substring(0, random.nextInt(12));
+                pw.print("R" + i + "," + LectorCSV.escapar(texto) + "," + random.nextLong() + ",");
+                pw.print(random.nextBoolean() ? "\r\n" : "\n");
+                if (random.nextInt(50) == 0) {
+                    pw.print("\n");
+                }
+            }
+        }
+
+        List<List<String>> secuencial = new ArrayList<>();
+        long registrosSecuenciales = LectorCSV.leer(archivo, registro -> secuencial.add(campos(registro)));
+        esperar("registros secuenciales", registrosSecuenciales, 20_000L);
+
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            for (int cantidad : new int[] {1, 2, 7, 64, 5000}) {
+                long[] limites = LectorCSV.dividirEnLineas(canal, cantidad);
+                List<List<String>> porTrozos = new ArrayList<>();
+                long registros = 0;
+                for (int i = 0; i < cantidad; i++) {
+                    if (limites[i] > limites[i + 1]) {
+                        System.err.println("ERROR: límites decrecientes en " + i + " con " + cantidad + " trozos");
+                    }
+                    ByteBuffer region = canal.map(FileChannel.MapMode.READ_ONLY, limites[i],
+                            limites[i + 1] - limites[i]);
+                    registros += LectorCSV.leer(region, registro -> porTrozos.add(campos(registro)));
+                }
+                esperar("cantidad leída en " + cantidad + " trozos", registros, registrosSecuenciales);
+                esperar("lectura en " + cantidad + " trozos", porTrozos, secuencial);
+            }
+        }
+    }
+
+    private static List<List<String>> leer(String texto) {
+        List<List<String>> registros = new ArrayList<>();
+        LectorCSV.leer(texto, registro -> registros.add(campos(registro)));
+        return registros;
+    }
+
+    private static List<String> campos(LectorCSV.Registro registro) {
+        List<String> campos = new ArrayList<>(registro.cantidadCampos());
+        for (int i = 0; i < registro.cantidadCampos(); i++) {
+            campos.add(registro.texto(i));
+        }
+        return campos;
+    }
+
+    private static void esperar(String caso, Object obtenido, Object esperado) {
+        if (!obtenido.equals(esperado)) {
+            System.err.println("ERROR: " + caso + ": se esperaba " + esperado + " y se obtuvo " + obtenido);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package pruebas;
+
+import util.Metricas;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+
+public class TestMetricas {
+    public static void main(String[] args) {
+        try {
+            boolean ok = true;
+
+            // valores 1..10000: cada percentil con error relativo de a lo sumo 1/16
+            Metricas.Histograma histograma = Metricas.histograma("prueba.valores");
+            for (int v = 1; v <= 10000; v++) {
+                histograma.registrar(v);
+            }
+            Metricas.Resumen resumen = histograma.resumen();
+            System.out.println("prueba.valores: " + resumen);
+            ok &= verificar("cantidad", resumen.getCantidad(), 10000, 0);
+            ok &= verificar("minimo", resumen.getMinimo(), 1, 0);
+            ok &= verificar("maximo", resumen.getMaximo(), 10000, 0);
+            ok &= verificar("p50", resumen.getP50(), 5000, 1.0 / 16);
+            ok &= verificar("p90", resumen.getP90(), 9000, 1.0 / 16);
+            ok &= verificar("p99", resumen.getP99(), 9900, 1.0 / 16);
+
+            // contadores e histograma desde varios hilos a la vez: no se pierde nada
+            Metricas.Contador contador = Metricas.contador("prueba.contador");
+            Metricas.Histograma concurrente = Metricas.histograma("prueba.concurrente");
+            List<Thread> hilos = new ArrayList<>();
+            for (int h = 0; h < 4; h++) {
+                Thread hilo = new Thread(() -> {
+                    for (int i = 0; i < 100_000; i++) {
+                        contador.incrementar();
+                        concurrente.registrar(i);
+                    }
+                });
+                hilos.add(hilo);
+                hilo.start();
+            }
+            for (Thread hilo : hilos) {
+                hilo.join();
+            }
+            ok &= verificar("contador concurrente", contador.valor(), 400_000, 0);
+            ok &= verificar("histograma concurrente", concurrente.resumen().getCantidad(), 400_000, 0);
+
+            // instantánea y volcado a archivo
+            Metricas.Instantanea instantanea = Metricas.instantanea();
+            System.out.print(instantanea);
+            if (!instantanea.getHistogramas().containsKey("prueba.valores")
+                    || !instantanea.getContadores().containsKey("prueba.contador")) {
+                System.err.println("ERROR: faltan métricas en la instantánea");
+                ok = false;
+            }
+            File archivo = File.createTempFile("metricas", ".csv");
+            archivo.delete();
+            Metricas.volcar(archivo);
+            Metricas.volcar(archivo);
+            List<String> lineas = Files.readAllLines(archivo.toPath());
+            int esperadas = 1 + 2 * (instantanea.getContadores().size() + instantanea.getHistogramas().size());
+            ok &= verificar("líneas del volcado", lineas.size(), esperadas, 0);
+            archivo.delete();
+
+            if (ok) {
+                System.out.println("\nOK: TestMetricas ejecutado exitosamente");
+            }
+        } catch (Exception e) {
+            System.err.println("ERROR en TestMetricas: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static boolean verificar(String nombre, long obtenido, long esperado, double errorRelativo) {
+        if (Math.abs(obtenido - esperado) > esperado * errorRelativo) {
+            System.err.println("ERROR: " + nombre + " = " + obtenido + ", se esperaba " + esperado);
+            return false;
+        }
+        return true;
+    }
+}
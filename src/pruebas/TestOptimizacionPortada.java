@@ -1,5 +1,7 @@
 package pruebas;
 
+import algoritmos.MotorMochila;
+import algoritmos.MotorMochila.Estrategia;
 import algoritmos.OptimizacionPortada;
 import algoritmos.OptimizacionPortada.ResultadoOptimizacion;
 import modelo.PublicacionModelo;
@@ -17,5 +19,65 @@ public class TestOptimizacionPortada {
 
         ResultadoOptimizacion res = OptimizacionPortada.optimizar(publicaciones, espacioMaximo);
         res.mostrarResultado();
+        if (!res.esExacto()) {
+            System.err.println("ERROR: la portada chica se resolvió con " + res.getEstrategia());
+        }
+
+        // las estrategias exactas del motor llegan al mismo beneficio; la voraz al menos a la mitad
+        for (Estrategia estrategia : Estrategia.values()) {
+            int beneficio = OptimizacionPortada.optimizar(publicaciones, espacioMaximo, estrategia)
+                    .getBeneficioMaximo();
+            boolean correcto = estrategia == Estrategia.VORAZ
+                    ? 2 * beneficio >= res.getBeneficioMaximo() && beneficio <= res.getBeneficioMaximo()
+                    : beneficio == res.getBeneficioMaximo();
+            if (!correcto) {
+                System.err.println("ERROR: la estrategia " + estrategia + " dio " + beneficio);
+            }
+        }
+
+        // capacidad >= 2^16: VECTOR_PARALELO corre de verdad y tiene que coincidir con las exactas
+        Random random = new Random(11);
+        int[] pesos = new int[40];
+        int[] valores = new int[40];
+        for (int i = 0; i < pesos.length; i++) {
+            pesos[i] = 1 + random.nextInt(20000);
+            valores[i] = 1 + random.nextInt(1000);
+        }
+        int capacidadGrande = 70000;
+        MotorMochila.ResultadoMochila tabla = MotorMochila.resolver(pesos, valores, capacidadGrande,
+                Estrategia.TABLA_COMPLETA);
+        MotorMochila.ResultadoMochila unico = MotorMochila.resolver(pesos, valores, capacidadGrande,
+                Estrategia.VECTOR_UNICO);
+        MotorMochila.ResultadoMochila paralelo = MotorMochila.resolver(pesos, valores, capacidadGrande,
+                Estrategia.VECTOR_PARALELO);
+        int pesoParalelo = 0;
+        int valorParalelo = 0;
+        for (int i = 0; i < pesos.length; i++) {
+            if (paralelo.estaSeleccionado(i)) {
+                pesoParalelo += pesos[i];
+                valorParalelo += valores[i];
+            }
+        }
+        System.out.println("Capacidad " + capacidadGrande + ": tabla " + tabla.getValorMaximo() + ", vector "
+                + unico.getValorMaximo() + ", paralelo " + paralelo.getValorMaximo());
+        if (paralelo.getEstrategia() != Estrategia.VECTOR_PARALELO
+                || paralelo.getValorMaximo() != tabla.getValorMaximo()
+                || paralelo.getValorMaximo() != unico.getValorMaximo()
+                || valorParalelo != paralelo.getValorMaximo() || pesoParalelo > capacidadGrande) {
+            System.err.println("ERROR: VECTOR_PARALELO (" + paralelo.getEstrategia() + ") dio "
+                    + paralelo.getValorMaximo() + " con peso " + pesoParalelo);
+        }
+
+        // con muchas publicaciones y un espacio enorme AUTOMATICA cae en VORAZ y el resultado lo tiene que decir
+        List<PublicacionModelo> muchas = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            muchas.add(new PublicacionModelo("M" + i, "1", "Masiva", new Date(), 0,
+                    1 + random.nextInt(1_000_000), 1 + random.nextInt(1000)));
+        }
+        ResultadoOptimizacion aproximado = OptimizacionPortada.optimizar(muchas, 2_000_000_000);
+        if (aproximado.getEstrategia() != Estrategia.VORAZ || aproximado.esExacto()) {
+            System.err.println("ERROR: la portada enorme se resolvió con " + aproximado.getEstrategia()
+                    + " (exacto: " + aproximado.esExacto() + ")");
+        }
     }
 }
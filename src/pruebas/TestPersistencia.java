@@ -0,0 +1,315 @@
+package pruebas;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import datos.Bitacora;
+import datos.GestorDatos;
+import datos.LectorCSV;
+import modelo.Anuncio;
+import modelo.Interaccion;
+import modelo.PublicacionModelo;
+import modelo.Usuario;
+import servicio.ServicioAnuncios;
+import servicio.ServicioInteracciones;
+import servicio.ServicioPublicaciones;
+import servicio.ServicioUsuarios;
+
+/**
+ * Guarda cambios por bitácora hasta que se compacta, cierra, vuelve a cargar
+ * y compara con lo que había en memoria. Los likes se cambian sobre
+ * publicaciones ya guardadas, así la carga reaplica registros por posición.
+ * También verifica que una línea cortada al final de una bitácora se
+ * descarte sin perder lo que se registra después.
+ */
+public class TestPersistencia {
+    private static final int USUARIOS_INICIALES = 50;
+    private static final int CAMBIOS = 800;
+    private static final int CAMBIOS_POR_GUARDADO = 100;
+
+    public static void main(String[] args) {
+        try {
+            for (GestorDatos.Formato formato : GestorDatos.Formato.values()) {
+                verificarRecarga(formato);
+            }
+            verificarLikesTrasLineaCortada();
+            verificarCambiosTrasLineaCortada();
+            verificarInteraccionInvalida();
+            verificarInteraccionEntreComillas();
+            System.out.println("Persistencia verificada.");
+        } catch (Exception e) {
+            System.err.println("ERROR: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static void verificarRecarga(GestorDatos.Formato formato) throws IOException {
+        File directorio = Files.createTempDirectory("persistencia").toFile();
+        try {
+            // instantánea inicial completa
+            GestorDatos gestor = new GestorDatos(directorio.getPath(), formato);
+            ServicioUsuarios usuarios = new ServicioUsuarios(gestor);
+            ServicioPublicaciones publicaciones = new ServicioPublicaciones(gestor);
+            ServicioAnuncios anuncios = new ServicioAnuncios(gestor);
+            for (int i = 0; i < USUARIOS_INICIALES; i++) {
+                usuarios.agregarUsuario("U" + i, "Usuario " + i);
+                publicaciones.agregarPublicacion(new PublicacionModelo("P" + i, "U" + i,
+                        "Inicial " + i, new Date(1_000_000L * i), i));
+                anuncios.agregarAnuncio(new Anuncio("A" + i, i + 1, 10 * i));
+            }
+            usuarios.guardarUsuarios();
+            publicaciones.guardarPublicaciones();
+            anuncios.guardarAnuncios();
+            gestor.cerrar();
+
+            // cambios por bitácora, con comas, comillas y saltos de línea en los campos
+            gestor = new GestorDatos(directorio.getPath(), formato);
+            usuarios = new ServicioUsuarios(gestor);
+            publicaciones = new ServicioPublicaciones(gestor);
+            anuncios = new ServicioAnuncios(gestor);
+            Random random = new Random(20);
+            for (int i = 0; i < CAMBIOS; i++) {
+                usuarios.agregarUsuario("N" + i, "Nuevo, \"" + i + "\"");
+                usuarios.agregarAmistad("N" + i, "U" + random.nextInt(USUARIOS_INICIALES));
+                publicaciones.agregarPublicacion(new PublicacionModelo("Q" + i, "N" + i,
+                        "línea 1\nlínea 2, con coma", new Date(1_000_000L * i), i));
+                PublicacionModelo existente = publicaciones.obtenerTodasLasPublicaciones()
+                        .get(random.nextInt(USUARIOS_INICIALES + i));
+                publicaciones.actualizarLikes(existente, existente.getLikes() + 1 + random.nextInt(5));
+                anuncios.agregarAnuncio(new Anuncio("B" + i, 1 + random.nextInt(9), random.nextInt(100)));
+                if (i % CAMBIOS_POR_GUARDADO == CAMBIOS_POR_GUARDADO - 1) {
+                    usuarios.guardarCambiosUsuarios();
+                    publicaciones.guardarCambiosPublicaciones();
+                    anuncios.guardarCambiosAnuncios();
+                }
+            }
+            // cambios posteriores a la última compactación: quedan solo en la bitácora
+            for (int i = 0; i < USUARIOS_INICIALES; i++) {
+                usuarios.agregarAmistad("U" + i, "N" + i);
+                PublicacionModelo inicial = publicaciones.obtenerTodasLasPublicaciones().get(i);
+                publicaciones.actualizarLikes(inicial, inicial.getLikes() + 100);
+            }
+            usuarios.guardarCambiosUsuarios();
+            publicaciones.guardarCambiosPublicaciones();
+            String esperado = resumir(usuarios, publicaciones, anuncios);
+            gestor.cerrar();
+
+            // usuarios y publicaciones suman unos 2 registros por cambio, así que se compactaron y conservan solo
+            // lo posterior; anuncios suma uno por anuncio y nunca supera a la instantánea, por eso no se compacta
+            for (String bitacora : new String[] {"usuarios.log", "publicaciones.log"}) {
+                verificarCompactada(new File(directorio, bitacora), formato);
+            }
+
+            gestor = new GestorDatos(directorio.getPath(), formato);
+            String recargado = resumir(new ServicioUsuarios(gestor), new ServicioPublicaciones(gestor),
+                    new ServicioAnuncios(gestor));
+            gestor.cerrar();
+            if (!recargado.equals(esperado)) {
+                System.err.println("ERROR: " + formato + ": los datos recargados no coinciden con los guardados");
+            }
+        } finally {
+            borrar(directorio);
+        }
+    }
+
+    // un registro inválido y una línea sin \n al final (un corte a mitad de escritura) en interacciones.log
+    private static void verificarLikesTrasLineaCortada() throws IOException {
+        File directorio = Files.createTempDirectory("persistencia").toFile();
+        try {
+            GestorDatos gestor = new GestorDatos(directorio.getPath(), GestorDatos.Formato.CSV);
+            for (int i = 0; i < 3; i++) {
+                gestor.agregarInteraccion(new Interaccion("U" + i, "P" + i, "UA"));
+            }
+            gestor.cerrar();
+            File bitacora = new File(directorio, "interacciones.log");
+            agregarAlFinal(bitacora, "UM,PM,UA,noEsNumero\nUV,PV,UA,5\nUX,PX,UY,");
+
+            // cada like registrado después del corte tiene que seguir ahí en los reinicios siguientes
+            List<String> esperados = new ArrayList<>(List.of("U0", "U1", "U2", "UV"));
+            for (String usuario : new String[] {"UC", "UE", null}) {
+                gestor = new GestorDatos(directorio.getPath(), GestorDatos.Formato.CSV);
+                List<String> cargados = new ArrayList<>();
+                for (Interaccion interaccion : gestor.cargarInteracciones()) {
+                    cargados.add(interaccion.getUsuarioId());
+                }
+                if (!cargados.equals(esperados)) {
+                    System.err.println("ERROR: tras la línea cortada se cargaron " + cargados + " y no " + esperados);
+                }
+                if (usuario != null) {
+                    gestor.agregarInteraccion(new Interaccion(usuario, "P" + usuario, "UA"));
+                    esperados.add(usuario);
+                }
+                gestor.cerrar();
+            }
+
+            // otra línea cortada: se cuentan los registros completos, también el inválido
+            agregarAlFinal(bitacora, "UZ,P");
+            try (Bitacora lectura = new Bitacora(bitacora, 1, 1)) {
+                lectura.reproducir(registro -> { }, registro -> { });
+                if (lectura.getRegistros() != 7) {
+                    System.err.println("ERROR: la bitácora cortada cuenta " + lectura.getRegistros() + " registros");
+                }
+            }
+            byte[] contenido = Files.readAllBytes(bitacora.toPath());
+            if (contenido[contenido.length - 1] != '\n') {
+                System.err.println("ERROR: la línea cortada no se recortó de " + bitacora.getName());
+            }
+        } finally {
+            borrar(directorio);
+        }
+    }
+
+    // una línea cortada dentro de un campo entre comillas con salto de línea, en publicaciones.log
+    private static void verificarCambiosTrasLineaCortada() throws IOException {
+        File directorio = Files.createTempDirectory("persistencia").toFile();
+        try {
+            GestorDatos gestor = new GestorDatos(directorio.getPath(), GestorDatos.Formato.CSV);
+            ServicioPublicaciones publicaciones = new ServicioPublicaciones(gestor);
+            for (int i = 0; i < 3; i++) {
+                publicaciones.agregarPublicacion(new PublicacionModelo("P" + i, "U" + i, "Inicial " + i,
+                        new Date(1_000_000L * i), i));
+            }
+            publicaciones.guardarPublicaciones();
+            PublicacionModelo primera = publicaciones.obtenerTodasLasPublicaciones().get(0);
+            publicaciones.actualizarLikes(primera, 10);
+            publicaciones.guardarCambiosPublicaciones();
+            gestor.cerrar();
+            agregarAlFinal(new File(directorio, "publicaciones.log"), "1,P1,U1,\"línea 1\nlínea");
+
+            gestor = new GestorDatos(directorio.getPath(), GestorDatos.Formato.CSV);
+            publicaciones = new ServicioPublicaciones(gestor);
+            PublicacionModelo tercera = publicaciones.obtenerTodasLasPublicaciones().get(2);
+            publicaciones.actualizarLikes(tercera, 30);
+            publicaciones.guardarCambiosPublicaciones();
+            gestor.cerrar();
+
+            gestor = new GestorDatos(directorio.getPath(), GestorDatos.Formato.CSV);
+            List<String> cargadas = new ArrayList<>();
+            for (PublicacionModelo publicacion : new ServicioPublicaciones(gestor).obtenerTodasLasPublicaciones()) {
+                cargadas.add(publicacion.getId() + ":" + publicacion.getContenido() + ":" + publicacion.getLikes());
+            }
+            gestor.cerrar();
+            List<String> esperadas = List.of("P0:Inicial 0:10", "P1:Inicial 1:1", "P2:Inicial 2:30");
+            if (!cargadas.equals(esperadas)) {
+                System.err.println("ERROR: tras la línea cortada se cargaron " + cargadas + " y no " + esperadas);
+            }
+        } finally {
+            borrar(directorio);
+        }
+    }
+
+    // una interacción inválida en una instantánea grande (que se lee por trozos en paralelo) no tira las demás,
+    // y una carga con errores no se confunde con no tener datos: no se pisan con las de ejemplo
+    private static void verificarInteraccionInvalida() throws IOException {
+        File directorio = Files.createTempDirectory("persistencia").toFile();
+        try {
+            File archivo = new File(directorio, "interacciones.txt");
+            int cantidad = 400_000;
+            try (PrintWriter pw = new PrintWriter(archivo, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < cantidad; i++) {
+                    pw.print(i == cantidad / 2 ? "U1,P1,U2,noEsNumero\n"
+                            : "U" + i + ",P" + i + ",U" + i % 97 + ",1700000000000\n");
+                }
+            }
+            GestorDatos gestor = new GestorDatos(directorio.getPath(), GestorDatos.Formato.CSV);
+            int cargadas = gestor.cargarInteracciones().size();
+            if (cargadas != cantidad - 1 || !gestor.cargaInteraccionesConErrores()) {
+                System.err.println("ERROR: con una interacción inválida se cargaron " + cargadas + " de "
+                        + (cantidad - 1) + " (errores: " + gestor.cargaInteraccionesConErrores() + ")");
+            }
+            gestor.cerrar();
+
+            Files.write(archivo.toPath(), "U1,P1,U2,noEsNumero\n".getBytes(StandardCharsets.UTF_8));
+            gestor = new GestorDatos(directorio.getPath(), GestorDatos.Formato.CSV);
+            new ServicioInteracciones(gestor);
+            gestor.cerrar();
+            List<String> lineas = Files.readAllLines(archivo.toPath(), StandardCharsets.UTF_8);
+            if (!lineas.equals(List.of("U1,P1,U2,noEsNumero"))) {
+                System.err.println("ERROR: una carga fallida reemplazó interacciones.txt por " + lineas.size()
+                        + " líneas");
+            }
+        } finally {
+            borrar(directorio);
+        }
+    }
+
+    // un id entre comillas con saltos de línea que cruza los cortes de la lectura por trozos
+    private static void verificarInteraccionEntreComillas() throws IOException {
+        File directorio = Files.createTempDirectory("persistencia").toFile();
+        try {
+            File archivo = new File(directorio, "interacciones.txt");
+            int cantidad = 400_000;
+            String autorLargo = "a\n".repeat(3_000_000);
+            try (PrintWriter pw = new PrintWriter(archivo, StandardCharsets.UTF_8)) {
+                for (int i = 0; i < cantidad; i++) {
+                    String autor = i == cantidad / 4 ? autorLargo : "U" + i % 97;
+                    pw.print("U" + i + ",P" + i + "," + LectorCSV.escapar(autor) + ",1700000000000\n");
+                }
+            }
+            GestorDatos gestor = new GestorDatos(directorio.getPath(), GestorDatos.Formato.CSV);
+            List<Interaccion> interacciones = gestor.cargarInteracciones();
+            gestor.cerrar();
+            if (interacciones.size() != cantidad || gestor.cargaInteraccionesConErrores()
+                    || !interacciones.get(cantidad / 4).getAutorPublicacion().equals(autorLargo)
+                    || !interacciones.get(cantidad - 1).getUsuarioId().equals("U" + (cantidad - 1))) {
+                System.err.println("ERROR: con un id entre comillas se cargaron " + interacciones.size() + " de "
+                        + cantidad + " interacciones o quedaron mal cortadas");
+            }
+        } finally {
+            borrar(directorio);
+        }
+    }
+
+    private static void agregarAlFinal(File archivo, String texto) throws IOException {
+        try (OutputStream salida = new FileOutputStream(archivo, true)) {
+            salida.write(texto.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void verificarCompactada(File archivo, GestorDatos.Formato formato) throws IOException {
+        if (new File(archivo.getPath() + ".compactando").exists()) {
+            System.err.println("ERROR: " + formato + ": quedó el segmento rotado de " + archivo.getName());
+        }
+        long[] registros = new long[1];
+        try (Bitacora bitacora = new Bitacora(archivo, 1, 1)) {
+            bitacora.reproducir(registro -> registros[0]++, registro -> registros[0]++);
+        }
+        if (registros[0] == 0 || registros[0] >= CAMBIOS) {
+            System.err.println("ERROR: " + formato + ": " + archivo.getName() + " tiene " + registros[0]
+                    + " registros; se esperaba una compactación");
+        }
+    }
+
+    private static String resumir(ServicioUsuarios usuarios, ServicioPublicaciones publicaciones,
+            ServicioAnuncios anuncios) {
+        StringBuilder resumen = new StringBuilder();
+        for (Usuario usuario : new TreeMap<>(usuarios.obtenerTodosLosUsuarios()).values()) {
+            resumen.append(usuario.getId()).append('|').append(usuario.getNombre()).append('|')
+                    .append(new TreeSet<>(usuario.getAmigos())).append('\n');
+        }
+        for (PublicacionModelo publicacion : publicaciones.obtenerTodasLasPublicaciones()) {
+            resumen.append(publicacion.getId()).append('|').append(publicacion.getAutorId()).append('|')
+                    .append(publicacion.getContenido()).append('|').append(publicacion.getFecha().getTime())
+                    .append('|').append(publicacion.getLikes()).append('\n');
+        }
+        for (Anuncio anuncio : anuncios.obtenerTodosLosAnuncios()) {
+            resumen.append(anuncio).append('\n');
+        }
+        return resumen.toString();
+    }
+
+    private static void borrar(File archivo) {
+        File[] hijos = archivo.listFiles();
+        if (hijos != null) {
+            for (File hijo : hijos) {
+                borrar(hijo);
+            }
+        }
+        archivo.delete();
+    }
+}
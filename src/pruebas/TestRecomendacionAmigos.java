@@ -1,9 +1,12 @@
 package pruebas;
 
+import java.io.File;
+import java.nio.file.Files;
 import java.util.*;
 import algoritmos.RecomendacionAmigos;
 import servicio.ServicioInteracciones;
 import servicio.ServicioUsuarios;
+import modelo.Interaccion;
 import modelo.Usuario;
 import datos.GestorDatos;
 
@@ -33,6 +36,31 @@ public class TestRecomendacionAmigos {
             );
             
             RecomendacionAmigos.mostrarRecomendaciones(usuario.getNombre(), recomendaciones, nombres);
+
+            // el motor con caché de pesos debe dar el mismo resultado que la versión estática
+            RecomendacionAmigos motor = new RecomendacionAmigos(servicioUsuarios, servicioInteracciones);
+            List<String> recomendacionesMotor = motor.recomendar(usuarioId);
+            if (!recomendacionesMotor.equals(recomendaciones)) {
+                System.err.println("ERROR: el motor con caché recomendó " + recomendacionesMotor);
+            }
+
+            // top-k acotado: con k = 2 deben salir los dos primeros de la lista completa
+            List<String> top2 = motor.recomendar(usuarioId, 2, 4.0);
+            if (!top2.equals(recomendaciones.subList(0, Math.min(2, recomendaciones.size())))) {
+                System.err.println("ERROR: top-2 inesperado " + top2);
+            }
+
+            // lote paralelo: la línea del usuario debe coincidir con la consulta individual
+            File salida = File.createTempFile("recomendaciones", ".txt");
+            salida.deleteOnExit();
+            int procesados = motor.recomendarATodos(salida, 5, 4.0);
+            String esperado = usuarioId + "," + String.join(";", recomendaciones);
+            if (!Files.readAllLines(salida.toPath()).contains(esperado)) {
+                System.err.println("ERROR: el lote no contiene la línea " + esperado);
+            }
+            System.out.println("Lote: " + procesados + " usuarios procesados");
+
+            verificarOrdenEnGrafoAleatorio();
             
             if (recomendaciones == null || recomendaciones.isEmpty()) {
                 System.out.println("\nNOTA: No hay recomendaciones disponibles para este usuario");
@@ -46,6 +74,90 @@ public class TestRecomendacionAmigos {
         }
     }
 
+    /**
+     * Red aleatoria de 60 usuarios con likes al azar: para cada usuario, las
+     * recomendaciones (individuales y del lote) deben salir ordenadas por la
+     * distancia de distanciasDesde (el grafo de ejemplo es demasiado chico
+     * para notarlo).
+     */
+    private static void verificarOrdenEnGrafoAleatorio() throws Exception {
+        Random random = new Random(7);
+        int cantidad = 60;
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            usuarios.add(new Usuario(String.format("U%03d", i), "Usuario " + i));
+        }
+        for (int i = 0; i < cantidad * 2; i++) {
+            Usuario a = usuarios.get(random.nextInt(cantidad));
+            Usuario b = usuarios.get(random.nextInt(cantidad));
+            if (a != b && !a.getAmigos().contains(b.getId())) {
+                a.agregarAmigo(b.getId());
+                b.agregarAmigo(a.getId());
+            }
+        }
+        List<Interaccion> likes = new ArrayList<>();
+        for (int i = 0; i < cantidad * 5; i++) {
+            likes.add(new Interaccion(usuarios.get(random.nextInt(cantidad)).getId(), "P" + i,
+                    usuarios.get(random.nextInt(cantidad)).getId()));
+        }
+
+        File directorio = Files.createTempDirectory("recomendaciones").toFile();
+        directorio.deleteOnExit();
+        GestorDatos gestorEnMemoria = new GestorDatos(directorio.getPath(), GestorDatos.Formato.CSV) {
+            @Override
+            public void cargarUsuarios(java.util.function.Consumer<Usuario> consumidor) {
+                usuarios.forEach(consumidor);
+            }
+
+            @Override
+            public List<Interaccion> cargarInteracciones() {
+                return new ArrayList<>(likes);
+            }
+        };
+        ServicioUsuarios servicioUsuarios = new ServicioUsuarios(gestorEnMemoria);
+        ServicioInteracciones servicioInteracciones = new ServicioInteracciones(gestorEnMemoria);
+        RecomendacionAmigos motor = new RecomendacionAmigos(servicioUsuarios, servicioInteracciones);
+        Map<String, List<String>> grafo = servicioUsuarios.obtenerGrafoAmistades();
+
+        int desordenados = 0;
+        for (Usuario usuario : usuarios) {
+            List<String> recomendaciones = motor.recomendar(usuario.getId(), 5, 4.0);
+            Map<String, Double> distancias = RecomendacionAmigos.distanciasDesde(grafo, usuario.getId(),
+                    servicioInteracciones);
+            if (!ordenadasPorDistancia(recomendaciones, distancias)) {
+                desordenados++;
+                System.err.println("ERROR: recomendaciones de " + usuario.getId() + " fuera de orden: "
+                        + recomendaciones);
+            }
+        }
+
+        // el lote nocturno tiene que dar las mismas listas, en el mismo orden
+        File salida = File.createTempFile("recomendaciones", ".txt");
+        salida.deleteOnExit();
+        motor.recomendarATodos(salida, 5, 4.0);
+        for (String linea : Files.readAllLines(salida.toPath())) {
+            String[] partes = linea.split(",", -1);
+            List<String> recomendaciones = partes[1].isEmpty()
+                    ? new ArrayList<>() : Arrays.asList(partes[1].split(";"));
+            Map<String, Double> distancias = RecomendacionAmigos.distanciasDesde(grafo, partes[0],
+                    servicioInteracciones);
+            if (!ordenadasPorDistancia(recomendaciones, distancias)) {
+                desordenados++;
+                System.err.println("ERROR: línea del lote fuera de orden: " + linea);
+            }
+        }
+        System.out.println("Red aleatoria: " + desordenados + " listas con el orden mal");
+    }
+
+    private static boolean ordenadasPorDistancia(List<String> recomendaciones, Map<String, Double> distancias) {
+        for (int i = 1; i < recomendaciones.size(); i++) {
+            if (distancias.get(recomendaciones.get(i - 1)) > distancias.get(recomendaciones.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static Map<String, String> obtenerMapaNombres(ServicioUsuarios servicioUsuarios) {
         Map<String, String> nombres = new HashMap<>();
         Map<String, Usuario> todosUsuarios = servicioUsuarios.obtenerTodosLosUsuarios();
@@ -1,7 +1,9 @@
 package pruebas;
 
 import algoritmos.RutasInfluencia;
+import util.GrafoCompacto;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 
 public class TestRutasInfluencia {
@@ -41,5 +43,77 @@ public class TestRutasInfluencia {
         List<String> ruta2 = r2.buscarCadenas("X", "Z");
         System.out.println("\n=== Escenario 2: ruta desde X hasta Z (inexistente) ===");
         RutasInfluencia.mostrarRuta(ruta2, nombres2);
+
+        // mismo grafo del escenario 1, pero ya compactado
+        Map<String, List<String>> adyacencia = new HashMap<>();
+        adyacencia.put("A", Arrays.asList("B", "C"));
+        adyacencia.put("B", Arrays.asList("D"));
+        adyacencia.put("C", Arrays.asList("E", "D"));
+        adyacencia.put("D", Arrays.asList("F"));
+        adyacencia.put("E", Arrays.asList("F"));
+
+        RutasInfluencia r3 = new RutasInfluencia(GrafoCompacto.desde(adyacencia));
+        List<String> ruta3 = r3.buscarCadenas("A", "F");
+        System.out.println("\n=== Escenario 3: ruta desde A hasta F sobre grafo compacto ===");
+        RutasInfluencia.mostrarRuta(ruta3, nombres);
+        System.out.println("Óptima: " + r3.esOptima());
+
+        // grafo completo de 40 usuarios: hay más de 10^46 caminos simples entre dos de ellos,
+        // la búsqueda tiene que cortar por tiempo y devolver la mejor cadena hallada
+        Map<String, List<String>> completo = new LinkedHashMap<>();
+        for (int i = 0; i < 40; i++) {
+            List<String> vecinos = new ArrayList<>();
+            for (int j = 0; j < 40; j++) {
+                if (i != j) {
+                    vecinos.add("U" + j);
+                }
+            }
+            completo.put("U" + i, vecinos);
+        }
+        RutasInfluencia r4 = new RutasInfluencia(GrafoCompacto.desde(completo));
+        r4.setLimiteTiempo(50, TimeUnit.MILLISECONDS);
+        long inicio = System.nanoTime();
+        List<String> ruta4 = r4.buscarCadenas("U0", "U39");
+        long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+        System.out.println("\n=== Escenario 4: grafo completo de 40 usuarios, límite de 50 ms ===");
+        System.out.println("Usuarios en la cadena: " + (ruta4 == null ? 0 : ruta4.size()) +
+                ", óptima: " + r4.esOptima() + ", nodos expandidos: " + r4.getNodosExpandidos());
+        if (ruta4 == null || ruta4.size() != 40 || milisegundos > 1000) {
+            System.err.println("ERROR: se esperaba una cadena por los 40 usuarios en menos de 1 s (" +
+                    milisegundos + " ms)");
+        }
+
+        // modo bidireccional sobre el grafo del escenario 1: todas las cadenas tienen 3 saltos
+        List<String> ruta5 = r1.buscarCadenas("A", "F", RutasInfluencia.Estrategia.BIDIRECCIONAL);
+        System.out.println("\n=== Escenario 5: ruta desde A hasta F, búsqueda bidireccional ===");
+        RutasInfluencia.mostrarRuta(ruta5, nombres);
+        if (!ruta1.equals(ruta5)) {
+            System.err.println("ERROR: la búsqueda bidireccional devolvió otra ruta que la de ramificación y poda");
+        }
+
+        // red de 50000 usuarios donde cada uno se hace amigo de 3 anteriores: pocos saltos entre dos
+        // cualesquiera, pero los caminos simples son incontables; los frentes se cruzan a mitad de camino
+        Random random = new Random(42);
+        List<String> ids = new ArrayList<>();
+        Map<String, List<String>> red = new LinkedHashMap<>();
+        for (int i = 0; i < 50000; i++) {
+            String id = "U" + i;
+            red.put(id, new ArrayList<>());
+            for (int k = 0; k < 3 && i > 0; k++) {
+                String amigo = ids.get(random.nextInt(i));
+                red.get(id).add(amigo);
+                red.get(amigo).add(id);
+            }
+            ids.add(id);
+        }
+        RutasInfluencia r6 = new RutasInfluencia(GrafoCompacto.desde(red));
+        r6.setHolgura(1);
+        List<String> ruta6 = r6.buscarCadenas("U1", "U49999", RutasInfluencia.Estrategia.BIDIRECCIONAL);
+        System.out.println("\n=== Escenario 6: red de 50000 usuarios, búsqueda bidireccional con holgura 1 ===");
+        System.out.println("Usuarios en la cadena: " + (ruta6 == null ? 0 : ruta6.size()) +
+                ", óptima: " + r6.esOptima() + ", nodos expandidos: " + r6.getNodosExpandidos());
+        if (ruta6 == null || !r6.esOptima() || r6.getNodosExpandidos() >= red.size()) {
+            System.err.println("ERROR: se esperaba la mejor cadena explorando menos nodos que la red completa");
+        }
     }
 }
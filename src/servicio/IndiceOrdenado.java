@@ -0,0 +1,153 @@
+package servicio;
+
+import util.Pagina;
+import java.util.*;
+
+/**
+ * Índice de elementos ordenados de mayor a menor clave, mantenido al
+ * insertar (árbol rojo-negro de TreeSet): agregar y actualizar cuestan
+ * O(log N), leer los primeros K cuesta O(K) y una página a partir de un
+ * cursor O(log N + tamaño de página), sin reordenar nada.
+ * A igual clave va primero el de menor secuencia (el que llegó antes).
+ *
+ * La secuencia la asigna quien agrega: si varios índices usan la misma
+ * numeración, un cursor de uno vale para los demás y se pueden mezclar
+ * (k-way merge) como si fueran uno solo.
+ *
+ * Los elementos se identifican por referencia, así que dos publicaciones
+ * distintas con el mismo id ocupan dos entradas.
+ */
+class IndiceOrdenado<T> {
+    private final TreeSet<Entrada<T>> entradas = new TreeSet<>();
+    private final Map<T, Entrada<T>> entradaPorElemento = new IdentityHashMap<>();
+
+    public void agregar(T elemento, double clave, long secuencia) {
+        Entrada<T> entrada = new Entrada<>(clave, secuencia, elemento);
+        entradas.add(entrada);
+        entradaPorElemento.put(elemento, entrada);
+    }
+
+    /**
+     * Reubica el elemento según su nueva clave, conservando su orden de
+     * llegada para los empates. No hace nada si el elemento no está.
+     */
+    public void actualizar(T elemento, double clave) {
+        Entrada<T> anterior = entradaPorElemento.get(elemento);
+        if (anterior == null || anterior.clave == clave) {
+            return;
+        }
+        entradas.remove(anterior);
+        Entrada<T> nueva = new Entrada<>(clave, anterior.secuencia, elemento);
+        entradas.add(nueva);
+        entradaPorElemento.put(elemento, nueva);
+    }
+
+    /**
+     * Secuencia con la que se agregó el elemento, o -1 si no está.
+     */
+    public long secuencia(T elemento) {
+        Entrada<T> entrada = entradaPorElemento.get(elemento);
+        return entrada == null ? -1 : entrada.secuencia;
+    }
+
+    public List<T> primeros(int cantidad) {
+        List<T> resultado = new ArrayList<>(Math.max(0, Math.min(cantidad, entradas.size())));
+        Iterator<Entrada<T>> it = entradas.iterator();
+        while (resultado.size() < cantidad && it.hasNext()) {
+            resultado.add(it.next().elemento);
+        }
+        return resultado;
+    }
+
+    /**
+     * Hasta "limite" elementos que siguen al cursor (o desde el principio si
+     * el cursor es null). El cursor es "clave|secuencia" de la última entrada
+     * entregada, así que sigue siendo válido aunque se agreguen elementos.
+     */
+    public Pagina<T> pagina(String cursor, int limite) {
+        return mezclar(Collections.singletonList(this), cursor, limite);
+    }
+
+    /**
+     * Página del orden combinado de varios índices (k-way merge): cada índice
+     * aporta su próxima entrada a un heap de tamaño k y se extrae la mejor.
+     * Cuesta O(k log N + limite log k), sin recorrer los índices completos.
+     * Los índices deben compartir la numeración de secuencias.
+     */
+    public static <T> Pagina<T> mezclar(List<IndiceOrdenado<T>> indices, String cursor, int limite) {
+        Entrada<T> desde = cursor == null ? null : parsearCursor(cursor);
+
+        PriorityQueue<Cabeza<T>> cabezas = new PriorityQueue<>(Math.max(1, indices.size()));
+        for (IndiceOrdenado<T> indice : indices) {
+            Iterator<Entrada<T>> it = desde == null
+                    ? indice.entradas.iterator()
+                    : indice.entradas.tailSet(desde, false).iterator();
+            if (it.hasNext()) {
+                cabezas.add(new Cabeza<>(it.next(), it));
+            }
+        }
+
+        List<T> elementos = new ArrayList<>();
+        Entrada<T> ultima = null;
+        while (elementos.size() < limite && !cabezas.isEmpty()) {
+            Cabeza<T> cabeza = cabezas.poll();
+            ultima = cabeza.entrada;
+            elementos.add(ultima.elemento);
+            if (cabeza.resto.hasNext()) {
+                cabezas.add(new Cabeza<>(cabeza.resto.next(), cabeza.resto));
+            }
+        }
+
+        String siguienteCursor = ultima != null && !cabezas.isEmpty() ? ultima.clave + "|" + ultima.secuencia : null;
+        return new Pagina<>(elementos, siguienteCursor);
+    }
+
+    public int tamano() {
+        return entradas.size();
+    }
+
+    private static <T> Entrada<T> parsearCursor(String cursor) {
+        int separador = cursor.lastIndexOf('|');
+        try {
+            return new Entrada<>(Double.parseDouble(cursor.substring(0, separador)),
+                    Long.parseLong(cursor.substring(separador + 1)), null);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+    }
+
+    // próxima entrada de un índice durante la mezcla, más el resto de su recorrido
+    private static class Cabeza<T> implements Comparable<Cabeza<T>> {
+        private final Entrada<T> entrada;
+        private final Iterator<Entrada<T>> resto;
+
+        Cabeza(Entrada<T> entrada, Iterator<Entrada<T>> resto) {
+            this.entrada = entrada;
+            this.resto = resto;
+        }
+
+        @Override
+        public int compareTo(Cabeza<T> otra) {
+            return entrada.compareTo(otra.entrada);
+        }
+    }
+
+    private static class Entrada<T> implements Comparable<Entrada<T>> {
+        private final double clave;
+        private final long secuencia;
+        private final T elemento;
+
+        Entrada(double clave, long secuencia, T elemento) {
+            this.clave = clave;
+            this.secuencia = secuencia;
+            this.elemento = elemento;
+        }
+
+        @Override
+        public int compareTo(Entrada<T> otra) {
+            // mayor clave primero; a igual clave, el que llegó antes
+            int comparacion = Double.compare(otra.clave, clave);
+            return comparacion != 0 ? comparacion : Long.compare(secuencia, otra.secuencia);
+        }
+    }
+}
@@ -10,19 +10,32 @@ import java.util.*;
 public class ServicioAnuncios {
     private List<Anuncio> anuncios;
     private GestorDatos gestorDatos;
+    private BitSet modificados; // posiciones de los anuncios agregados desde el último guardado
 
     // Constructor
     public ServicioAnuncios(GestorDatos gestorDatos) {
         this.gestorDatos = gestorDatos;
         this.anuncios = gestorDatos.cargarAnuncios();
+        this.modificados = new BitSet();
     }
     
     public void guardarAnuncios() {
         gestorDatos.guardarAnuncios(anuncios);
+        modificados.clear();
+    }
+
+    /**
+     * Guarda solo los anuncios agregados desde el último guardado.
+     */
+    public void guardarCambiosAnuncios() {
+        if (gestorDatos.guardarCambiosAnuncios(anuncios, modificados)) {
+            modificados.clear();
+        }
     }
     
     public void agregarAnuncio(Anuncio anuncio) {
         anuncios.add(anuncio);
+        modificados.set(anuncios.size() - 1);
         System.out.println("Anuncio agregado: " + anuncio.getNombre());
     }
     
@@ -2,23 +2,60 @@ package servicio;
 
 import modelo.*;
 import datos.GestorDatos;
+import util.ConjuntoLong;
+import util.Metricas;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 /**
  * Servicio para gestionar interacciones (likes) entre usuarios y publicaciones.
  * Este servicio es clave para el algoritmo de recomendación basado en afinidad.
  */
 public class ServicioInteracciones {
+    private static final Metricas.Histograma LATENCIA_REGISTRAR_LIKE =
+            Metricas.histograma("interacciones.registrarLike.ns");
+    private static final Metricas.Histograma LATENCIA_AFINIDAD =
+            Metricas.histograma("interacciones.calcularAfinidad.ns");
+    private static final Metricas.Contador LIKES_NUEVOS = Metricas.contador("interacciones.likesNuevos");
+    private static final Metricas.Contador LIKES_REPETIDOS = Metricas.contador("interacciones.likesRepetidos");
+
     private List<Interaccion> interacciones;
     private GestorDatos gestorDatos;
 
+    // Índices secundarios, se mantienen sincronizados con la lista de interacciones
+    private Map<String, List<Interaccion>> interaccionesPorUsuario;
+    private Map<String, Map<String, Integer>> likesPorUsuarioYAutor; // usuario -> autor -> cantidad
+    private Map<String, Map<String, Integer>> likesRecibidosPorAutor; // autor -> usuario -> cantidad
+
+    // Detección de likes duplicados: cada par (usuario, publicación) se guarda
+    // como un long con ambos ids internados a enteros
+    private Map<String, Integer> idsUsuarios;
+    private Map<String, Integer> idsPublicaciones;
+    private ConjuntoLong likesRegistrados;
+
+    private List<BiConsumer<String, String>> observadoresLikes = new ArrayList<>();
+
     //Constructor
     public ServicioInteracciones() {
-        this.gestorDatos = new GestorDatos();
+        this(new GestorDatos());
+    }
+
+    public ServicioInteracciones(GestorDatos gestorDatos) {
+        this.gestorDatos = gestorDatos;
         this.interacciones = gestorDatos.cargarInteracciones();
+        this.interaccionesPorUsuario = new HashMap<>();
+        this.likesPorUsuarioYAutor = new HashMap<>();
+        this.likesRecibidosPorAutor = new HashMap<>();
+        this.idsUsuarios = new HashMap<>();
+        this.idsPublicaciones = new HashMap<>();
+        this.likesRegistrados = new ConjuntoLong(interacciones.size());
+        for (Interaccion interaccion : interacciones) {
+            indexar(interaccion);
+        }
 
-        // Si no hay datos, generar algunas interacciones de ejemplo
-        if (this.interacciones.isEmpty()) {
+        // Si no hay datos, generar algunas interacciones de ejemplo; si la carga falló no, porque
+        // guardarlas pisaría el archivo que no se pudo leer
+        if (this.interacciones.isEmpty() && !gestorDatos.cargaInteraccionesConErrores()) {
             generarInteraccionesEjemplo();
         }
     }
@@ -27,20 +64,30 @@ public class ServicioInteracciones {
      * Registra un like de un usuario a una publicación.
      */
     public void registrarLike(String usuarioId, String publicacionId, String autorPublicacion) {
+        long inicio = System.nanoTime();
         // Verificar que no exista ya esta interacción
-        boolean yaExiste = interacciones.stream()
-                .anyMatch(i -> i.getUsuarioId().equals(usuarioId) &&
-                        i.getPublicacionId().equals(publicacionId));
+        boolean yaExiste = likesRegistrados.contiene(claveLike(usuarioId, publicacionId));
 
         if (!yaExiste) {
             Interaccion nuevaInteraccion = new Interaccion(usuarioId, publicacionId, autorPublicacion);
             interacciones.add(nuevaInteraccion);
-            gestorDatos.guardarInteracciones(interacciones);
+            indexar(nuevaInteraccion);
+            gestorDatos.agregarInteraccion(nuevaInteraccion);
+            if (gestorDatos.requiereCompactacionInteracciones()) {
+                gestorDatos.compactarInteracciones(interacciones);
+            }
             System.out.println(
                     usuarioId + " le dio like a la publicación " + publicacionId + " de " + autorPublicacion);
+
+            for (BiConsumer<String, String> observador : observadoresLikes) {
+                observador.accept(usuarioId, autorPublicacion);
+            }
+            LIKES_NUEVOS.incrementar();
         } else {
             System.out.println("El usuario " + usuarioId + " ya le dio like a esta publicación.");
+            LIKES_REPETIDOS.incrementar();
         }
+        LATENCIA_REGISTRAR_LIKE.registrarDesde(inicio);
     }
 
     /**
@@ -48,64 +95,52 @@ public class ServicioInteracciones {
      * gustaron).
      */
     public List<Interaccion> getInteraccionesDeUsuario(String usuarioId) {
-        return interacciones.stream()
-                .filter(i -> i.getUsuarioId().equals(usuarioId))
-                .collect(ArrayList::new, (list, item) -> list.add(item), (list1, list2) -> list1.addAll(list2));
+        return new ArrayList<>(interaccionesPorUsuario.getOrDefault(usuarioId, Collections.emptyList()));
     }
 
     /**
      * Obtiene cuántos likes recibió un autor de otros usuarios.
      */
     public Map<String, Integer> getLikesRecibidosPorAutor(String autorId) {
-        Map<String, Integer> likesRecibidos = new HashMap<>();
-
-        for (Interaccion interaccion : interacciones) {
-            if (interaccion.getAutorPublicacion().equals(autorId)) {
-                String usuarioQueGusto = interaccion.getUsuarioId();
-                likesRecibidos.put(usuarioQueGusto,
-                        likesRecibidos.getOrDefault(usuarioQueGusto, 0) + 1);
-            }
-        }
-
-        return likesRecibidos;
+        return new HashMap<>(likesRecibidosPorAutor.getOrDefault(autorId, Collections.emptyMap()));
     }
 
     /**
      * Calcula la afinidad entre dos usuarios basada en sus interacciones.
      * Mayor afinidad = menor distancia en el algoritmo de Dijkstra.
+     * Usa los índices por usuario: O(1) para los likes directos y
+     * O(min(autores1, autores2)) para los gustos comunes.
      */
     public double calcularAfinidad(String usuario1, String usuario2) {
+        long inicio = System.nanoTime();
+        Map<String, Integer> autoresUsuario1 = autoresQueGusta(usuario1);
+        Map<String, Integer> autoresUsuario2 = autoresQueGusta(usuario2);
+
         // Caso 1: Likes que usuario1 dio a publicaciones de usuario2
-        long likesDirectos = interacciones.stream()
-                .filter(i -> i.getUsuarioId().equals(usuario1) &&
-                        i.getAutorPublicacion().equals(usuario2))
-                .count();
+        long likesDirectos = autoresUsuario1.getOrDefault(usuario2, 0);
 
         // Caso 2: Likes que usuario2 dio a publicaciones de usuario1
-        long likesReversos = interacciones.stream()
-                .filter(i -> i.getUsuarioId().equals(usuario2) &&
-                        i.getAutorPublicacion().equals(usuario1))
-                .count();
+        long likesReversos = autoresUsuario2.getOrDefault(usuario1, 0);
 
         // Caso 3: Interacciones mutuas (ambos gustan contenido similar)
-        Set<String> autoresQueGustaUsuario1 = interacciones.stream()
-                .filter(i -> i.getUsuarioId().equals(usuario1))
-                .map(Interaccion::getAutorPublicacion)
-                .collect(HashSet::new, (set, item) -> set.add(item), (set1, set2) -> set1.addAll(set2));
-
-        Set<String> autoresQueGustaUsuario2 = interacciones.stream()
-                .filter(i -> i.getUsuarioId().equals(usuario2))
-                .map(Interaccion::getAutorPublicacion)
-                .collect(HashSet::new, (set, item) -> set.add(item), (set1, set2) -> set1.addAll(set2));
-
-        // Calcular intersección (autores que les gustan a ambos)
-        long gustosComunes = autoresQueGustaUsuario1.stream()
-                .filter(autoresQueGustaUsuario2::contains)
-                .count();
+        // se recorre el conjunto más chico y se consulta el otro
+        Map<String, Integer> menor = autoresUsuario1;
+        Map<String, Integer> mayor = autoresUsuario2;
+        if (menor.size() > mayor.size()) {
+            menor = autoresUsuario2;
+            mayor = autoresUsuario1;
+        }
+        long gustosComunes = 0;
+        for (String autor : menor.keySet()) {
+            if (mayor.containsKey(autor)) {
+                gustosComunes++;
+            }
+        }
 
         // Fórmula de afinidad: más interacciones = más afinidad
         double afinidad = (likesDirectos * 2.0) + (likesReversos * 2.0) + (gustosComunes * 1.0);
 
+        LATENCIA_AFINIDAD.registrarDesde(inicio);
         return afinidad;
     }
 
@@ -116,6 +151,47 @@ public class ServicioInteracciones {
         return new ArrayList<>(interacciones);
     }
 
+    private long claveLike(String usuarioId, String publicacionId) {
+        int usuario = idsUsuarios.computeIfAbsent(usuarioId, k -> idsUsuarios.size());
+        int publicacion = idsPublicaciones.computeIfAbsent(publicacionId, k -> idsPublicaciones.size());
+        return ConjuntoLong.empaquetar(usuario, publicacion);
+    }
+
+    private Map<String, Integer> autoresQueGusta(String usuarioId) {
+        return likesPorUsuarioYAutor.getOrDefault(usuarioId, Collections.emptyMap());
+    }
+
+    /**
+     * Registra un observador que se notifica con (usuario, autor de la
+     * publicación) cada vez que se registra un like nuevo.
+     */
+    public void agregarObservadorLikes(BiConsumer<String, String> observador) {
+        observadoresLikes.add(observador);
+    }
+
+    /**
+     * Sincroniza y cierra la bitácora de likes. Lo que quede en ella se
+     * reproduce en el próximo inicio.
+     */
+    public void cerrar() {
+        gestorDatos.cerrar();
+    }
+
+    /**
+     * Agrega una interacción a los índices por usuario, por autor, por par
+     * (usuario, autor) y al conjunto de pares (usuario, publicación).
+     */
+    private void indexar(Interaccion interaccion) {
+        String usuarioId = interaccion.getUsuarioId();
+        String autorId = interaccion.getAutorPublicacion();
+
+        likesRegistrados.agregar(claveLike(usuarioId, interaccion.getPublicacionId()));
+
+        interaccionesPorUsuario.computeIfAbsent(usuarioId, k -> new ArrayList<>()).add(interaccion);
+        likesPorUsuarioYAutor.computeIfAbsent(usuarioId, k -> new HashMap<>()).merge(autorId, 1, Integer::sum);
+        likesRecibidosPorAutor.computeIfAbsent(autorId, k -> new HashMap<>()).merge(usuarioId, 1, Integer::sum);
+    }
+
     /**
      * Genera algunas interacciones de ejemplo para demostrar el algoritmo.
      */
@@ -131,6 +207,10 @@ public class ServicioInteracciones {
         interacciones.add(new Interaccion("U005", "P002", "U003"));
         interacciones.add(new Interaccion("U005", "P001", "U002"));
 
+        for (Interaccion interaccion : interacciones) {
+            indexar(interaccion);
+        }
+
         gestorDatos.guardarInteracciones(interacciones);
         System.out.println("Generadas " + interacciones.size() + " interacciones de ejemplo para el algoritmo.");
     }
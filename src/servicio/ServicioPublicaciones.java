@@ -2,62 +2,251 @@ package servicio;
 
 import modelo.PublicacionModelo;
 import datos.GestorDatos;
+import util.Pagina;
 import java.util.*;
 
 /**
  * Servicio que gestiona las publicaciones de la red social.
  */
 public class ServicioPublicaciones {
+    private static final double MILISEGUNDOS_POR_DIA = 1000 * 60 * 60 * 24;
+
+    public enum OrdenFeed {
+        CRONOLOGICO,
+        RELEVANCIA
+    }
+
     private List<PublicacionModelo> publicaciones;
     private GestorDatos gestorDatos;
+    // id -> publicación; si hay ids repetidos queda la primera, igual que la búsqueda lineal
+    private Map<String, PublicacionModelo> publicacionesPorId;
+    // ranking por relevancia mantenido al insertar y al cambiar likes
+    private IndiceOrdenado<PublicacionModelo> indiceRelevancia;
+    // línea de tiempo (más nuevas primero) mantenida al insertar
+    private IndiceOrdenado<PublicacionModelo> indiceCronologico;
+    // los mismos dos órdenes, pero solo con las publicaciones de cada autor
+    private Map<String, IndiceOrdenado<PublicacionModelo>> relevanciaPorAutor;
+    private Map<String, IndiceOrdenado<PublicacionModelo>> cronologicoPorAutor;
+    // orden de llegada, compartido por todos los índices para que sus cursores sean compatibles
+    private long siguienteSecuencia;
+    // posiciones de las publicaciones nuevas o con likes cambiados desde el último guardado
+    private BitSet modificadas;
 
     // Constructor
     public ServicioPublicaciones(GestorDatos gestorDatos) {
         this.gestorDatos = gestorDatos;
         this.publicaciones = gestorDatos.cargarPublicaciones();
+        this.publicacionesPorId = new HashMap<>(publicaciones.size() * 2);
+        this.indiceRelevancia = new IndiceOrdenado<>();
+        this.indiceCronologico = new IndiceOrdenado<>();
+        this.relevanciaPorAutor = new HashMap<>();
+        this.cronologicoPorAutor = new HashMap<>();
+        this.modificadas = new BitSet();
+        for (PublicacionModelo publicacion : publicaciones) {
+            indexar(publicacion);
+        }
     }
 
     public void guardarPublicaciones() {
         gestorDatos.guardarPublicaciones(publicaciones);
+        modificadas.clear();
+    }
+
+    /**
+     * Guarda solo las publicaciones nuevas o con likes cambiados desde el
+     * último guardado.
+     */
+    public void guardarCambiosPublicaciones() {
+        if (gestorDatos.guardarCambiosPublicaciones(publicaciones, modificadas)) {
+            modificadas.clear();
+        }
     }
 
     public void agregarPublicacion(PublicacionModelo publicacion) {
         publicaciones.add(publicacion);
+        indexar(publicacion);
+        modificadas.set(publicaciones.size() - 1);
         System.out.println("Publicación agregada: " + publicacion.getId());
     }
 
+    /**
+     * Cambia los likes de una publicación y la reubica en el ranking en
+     * O(log N). Los cambios hechos directamente con setLikes no llegan al índice.
+     */
+    public void actualizarLikes(PublicacionModelo publicacion, int likes) {
+        publicacion.setLikes(likes);
+        // la secuencia es el orden de llegada, o sea la posición en la lista
+        long posicion = indiceCronologico.secuencia(publicacion);
+        if (posicion >= 0) {
+            modificadas.set((int) posicion);
+        }
+        double puntaje = puntajeNormalizado(publicacion);
+        indiceRelevancia.actualizar(publicacion, puntaje);
+        IndiceOrdenado<PublicacionModelo> delAutor = relevanciaPorAutor.get(publicacion.getAutorId());
+        if (delAutor != null) {
+            delAutor.actualizar(publicacion, puntaje);
+        }
+    }
+
+    public int cantidadPublicaciones() {
+        return publicaciones.size();
+    }
+
     public List<PublicacionModelo> obtenerTodasLasPublicaciones() {
         return new ArrayList<>(publicaciones);
     }
 
+    /**
+     * Búsqueda por id en O(1) con el mapa mantenido al cargar y al agregar.
+     */
     public PublicacionModelo obtenerPublicacion(String id) {
-        return publicaciones.stream()
-                .filter(p -> p.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        return publicacionesPorId.get(id);
     }
 
     /**
-     * Vista cronológica: ordena por fecha.
+     * Vista cronológica: recorre el índice por fecha (más nuevas primero).
      */
     public List<PublicacionModelo> obtenerVistaCronologica() {
-        List<PublicacionModelo> cronologica = new ArrayList<>(publicaciones);
-        cronologica.sort(Comparator.comparing(PublicacionModelo::getFecha).reversed());
-        return cronologica;
+        return indiceCronologico.primeros(indiceCronologico.tamano());
     }
 
     /**
-     * Vista por relevancia usando Heap (PriorityQueue).
+     * Página de la vista cronológica para scroll infinito: hasta "limite"
+     * publicaciones después del cursor (null para la primera página), en
+     * O(log N + limite). El cursor de la página sigue siendo válido aunque
+     * lleguen publicaciones nuevas.
+     */
+    public Pagina<PublicacionModelo> obtenerPaginaCronologica(String cursor, int limite) {
+        return indiceCronologico.pagina(cursor, limite);
+    }
+
+    /**
+     * Vista por relevancia usando Heap.
+     * La relevancia de cada publicación se calcula una sola vez (con el mismo
+     * instante para todas) en un arreglo de double, y se mantiene un min-heap
+     * de a lo sumo "top" índices: la raíz es la peor de las elegidas y solo se
+     * reemplaza si aparece una mejor. O(N log K) sin crear objetos por
+     * comparación. A igual relevancia gana la publicación agregada antes.
      */
     public List<PublicacionModelo> obtenerTopPorRelevancia(int top) {
-        PriorityQueue<PublicacionModelo> heap = new PriorityQueue<>(publicaciones);
-        List<PublicacionModelo> topRelevantes = new ArrayList<>();
+        int n = publicaciones.size();
+        int k = Math.min(top, n);
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
 
-        for (int i = 0; i < top && !heap.isEmpty(); i++) {
-            topRelevantes.add(heap.poll());
+        long ahora = System.currentTimeMillis();
+        double[] puntajes = new double[n];
+        for (int i = 0; i < n; i++) {
+            puntajes[i] = publicaciones.get(i).getRelevancia(ahora);
         }
 
-        return topRelevantes;
+        int[] heap = new int[k];
+        int tamano = 0;
+        for (int i = 0; i < n; i++) {
+            if (tamano < k) {
+                heap[tamano] = i;
+                subir(heap, tamano++, puntajes);
+            } else if (esPeor(heap[0], i, puntajes)) {
+                heap[0] = i;
+                bajar(heap, 0, tamano, puntajes);
+            }
+        }
+
+        // vaciar el heap de peor a mejor y llenar la lista desde el final
+        PublicacionModelo[] ordenadas = new PublicacionModelo[k];
+        while (tamano > 0) {
+            ordenadas[tamano - 1] = publicaciones.get(heap[0]);
+            heap[0] = heap[--tamano];
+            bajar(heap, 0, tamano, puntajes);
+        }
+        return new ArrayList<>(Arrays.asList(ordenadas));
+    }
+
+    /**
+     * Feed con las publicaciones de los autores dados (por ejemplo, los amigos
+     * de un usuario), en orden cronológico o por relevancia, paginado con
+     * cursor. Mezcla los índices por autor (k-way merge), así que una página
+     * cuesta O(A log N + limite log A) para A autores, sin depender del total
+     * de publicaciones.
+     */
+    public Pagina<PublicacionModelo> obtenerFeed(Collection<String> autores, OrdenFeed orden, String cursor,
+            int limite) {
+        Map<String, IndiceOrdenado<PublicacionModelo>> porAutor =
+                orden == OrdenFeed.RELEVANCIA ? relevanciaPorAutor : cronologicoPorAutor;
+
+        List<IndiceOrdenado<PublicacionModelo>> indices = new ArrayList<>();
+        for (String autor : new LinkedHashSet<>(autores)) {
+            IndiceOrdenado<PublicacionModelo> indice = porAutor.get(autor);
+            if (indice != null) {
+                indices.add(indice);
+            }
+        }
+        return IndiceOrdenado.mezclar(indices, cursor, limite);
+    }
+
+    /**
+     * Top por relevancia leído del índice en O(K).
+     * La relevancia es likes - días * 0.5 y el descuento por antigüedad es el
+     * mismo para todas, así que el orden relativo no cambia con el tiempo: el
+     * índice ordena por likes + fecha(en días) * 0.5, que no depende de "ahora".
+     * Como getRelevancia cuenta días enteros, dos publicaciones a menos de
+     * medio punto pueden aparecer en otro orden que en obtenerTopPorRelevancia.
+     */
+    public List<PublicacionModelo> obtenerRankingRelevancia(int top) {
+        return indiceRelevancia.primeros(top);
+    }
+
+    private void indexar(PublicacionModelo publicacion) {
+        publicacionesPorId.putIfAbsent(publicacion.getId(), publicacion);
+        long secuencia = siguienteSecuencia++;
+        double puntaje = puntajeNormalizado(publicacion);
+        double fecha = publicacion.getFecha().getTime();
+        indiceRelevancia.agregar(publicacion, puntaje, secuencia);
+        indiceCronologico.agregar(publicacion, fecha, secuencia);
+        relevanciaPorAutor.computeIfAbsent(publicacion.getAutorId(), a -> new IndiceOrdenado<>())
+                .agregar(publicacion, puntaje, secuencia);
+        cronologicoPorAutor.computeIfAbsent(publicacion.getAutorId(), a -> new IndiceOrdenado<>())
+                .agregar(publicacion, fecha, secuencia);
+    }
+
+    private static double puntajeNormalizado(PublicacionModelo publicacion) {
+        return publicacion.getLikes() + publicacion.getFecha().getTime() / MILISEGUNDOS_POR_DIA * 0.5;
+    }
+
+    // a es peor que b: menos relevante o, con la misma relevancia, agregada después
+    private static boolean esPeor(int a, int b, double[] puntajes) {
+        int comparacion = Double.compare(puntajes[a], puntajes[b]);
+        return comparacion < 0 || (comparacion == 0 && a > b);
+    }
+
+    private static void subir(int[] heap, int i, double[] puntajes) {
+        int elemento = heap[i];
+        while (i > 0) {
+            int padre = (i - 1) / 2;
+            if (!esPeor(elemento, heap[padre], puntajes)) {
+                break;
+            }
+            heap[i] = heap[padre];
+            i = padre;
+        }
+        heap[i] = elemento;
+    }
+
+    private static void bajar(int[] heap, int i, int tamano, double[] puntajes) {
+        int elemento = heap[i];
+        while (2 * i + 1 < tamano) {
+            int hijo = 2 * i + 1;
+            if (hijo + 1 < tamano && esPeor(heap[hijo + 1], heap[hijo], puntajes)) {
+                hijo++;
+            }
+            if (!esPeor(heap[hijo], elemento, puntajes)) {
+                break;
+            }
+            heap[i] = heap[hijo];
+            i = hijo;
+        }
+        heap[i] = elemento;
     }
 
     public void listarPublicaciones() {
@@ -2,6 +2,7 @@ package servicio;
 
 import modelo.Usuario;
 import datos.GestorDatos;
+import util.GrafoCompacto;
 import java.util.*;
 
 /**
@@ -10,28 +11,52 @@ import java.util.*;
 public class ServicioUsuarios {
     private Map<String, Usuario> usuarios;
     private GestorDatos gestorDatos;
+    private List<String> ordenIds; // orden de alta, da índices estables al grafo compacto
+    private GrafoCompacto grafoCompacto; // null si hubo cambios desde la última construcción
+    private Set<String> idsModificados; // usuarios nuevos o con amistades nuevas desde el último guardado
 
     // Constructor
     public ServicioUsuarios(GestorDatos gestorDatos) {
         this.gestorDatos = gestorDatos;
-        this.usuarios = new HashMap<>();
+        this.usuarios = new LinkedHashMap<>(); // en orden de alta, igual que ordenIds
+        this.ordenIds = new ArrayList<>();
+        this.idsModificados = new LinkedHashSet<>();
         cargarUsuarios();
     }
     
+    // los usuarios se indexan a medida que llegan, sin armar una lista intermedia
     private void cargarUsuarios() {
-        List<Usuario> listaUsuarios = gestorDatos.cargarUsuarios();
-        for (Usuario usuario : listaUsuarios) {
-            usuarios.put(usuario.getId(), usuario);
-        }
+        gestorDatos.cargarUsuarios(usuario -> {
+            if (usuarios.put(usuario.getId(), usuario) == null) {
+                ordenIds.add(usuario.getId());
+            }
+        });
     }
     
     public void guardarUsuarios() {
         gestorDatos.guardarUsuarios(new ArrayList<>(usuarios.values()));
+        idsModificados.clear();
+    }
+
+    /**
+     * Guarda solo los usuarios que cambiaron desde el último guardado.
+     */
+    public void guardarCambiosUsuarios() {
+        List<Usuario> modificados = new ArrayList<>(idsModificados.size());
+        for (String id : idsModificados) {
+            modificados.add(usuarios.get(id));
+        }
+        if (gestorDatos.guardarCambiosUsuarios(modificados, usuarios.values())) {
+            idsModificados.clear();
+        }
     }
     
     public void agregarUsuario(String id, String nombre) {
         if (!usuarios.containsKey(id)) {
             usuarios.put(id, new Usuario(id, nombre));
+            ordenIds.add(id);
+            idsModificados.add(id);
+            grafoCompacto = null;
             System.out.println("Usuario agregado: " + nombre);
         } else {
             System.out.println("El usuario con ID '" + id + "' ya existe.");
@@ -52,6 +77,9 @@ public class ServicioUsuarios {
         
         u1.agregarAmigo(idUsuario2);
         u2.agregarAmigo(idUsuario1);
+        idsModificados.add(idUsuario1);
+        idsModificados.add(idUsuario2);
+        grafoCompacto = null;
         System.out.println("Amistad creada entre " + u1.getNombre() + " y " + u2.getNombre());
     }
     
@@ -86,4 +114,17 @@ public class ServicioUsuarios {
         }
         return grafo;
     }
+
+    /**
+     * Devuelve el grafo de amistades en formato compacto (CSR) con ids
+     * internados a enteros. Se reconstruye solo si hubo altas de usuarios o
+     * amistades; los índices de los usuarios existentes no cambian entre
+     * construcciones.
+     */
+    public GrafoCompacto obtenerGrafoCompacto() {
+        if (grafoCompacto == null) {
+            grafoCompacto = GrafoCompacto.desde(ordenIds, id -> usuarios.get(id).getAmigos());
+        }
+        return grafoCompacto;
+    }
 }
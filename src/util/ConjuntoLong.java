@@ -0,0 +1,110 @@
+package util;
+
+/**
+ * Conjunto de valores long primitivos con direccionamiento abierto (sondeo
+ * lineal). No guarda objetos ni hace boxing: cada elemento ocupa 8 bytes en
+ * un único arreglo, y agregar/contiene son O(1) esperado.
+ */
+public class ConjuntoLong {
+    private static final long VACIO = 0L;
+    private static final float FACTOR_CARGA = 0.6f;
+
+    private long[] tabla;
+    private int tamano;
+    private int umbral;
+    private boolean contieneVacio; // el 0 no puede guardarse en la tabla porque marca las celdas libres
+
+    public ConjuntoLong() {
+        this(16);
+    }
+
+    public ConjuntoLong(int capacidadEsperada) {
+        int capacidad = Integer.highestOneBit(Math.max(4, (int) (capacidadEsperada / FACTOR_CARGA)) - 1) << 1;
+        this.tabla = new long[capacidad];
+        this.umbral = (int) (capacidad * FACTOR_CARGA);
+    }
+
+    /**
+     * Agrega el valor; devuelve false si ya estaba.
+     */
+    public boolean agregar(long valor) {
+        if (valor == VACIO) {
+            if (contieneVacio) {
+                return false;
+            }
+            contieneVacio = true;
+            tamano++;
+            return true;
+        }
+
+        int mascara = tabla.length - 1;
+        int i = mezclar(valor) & mascara;
+        while (tabla[i] != VACIO) {
+            if (tabla[i] == valor) {
+                return false;
+            }
+            i = (i + 1) & mascara;
+        }
+        tabla[i] = valor;
+        tamano++;
+
+        if (tamano > umbral) {
+            redimensionar();
+        }
+        return true;
+    }
+
+    public boolean contiene(long valor) {
+        if (valor == VACIO) {
+            return contieneVacio;
+        }
+
+        int mascara = tabla.length - 1;
+        int i = mezclar(valor) & mascara;
+        while (tabla[i] != VACIO) {
+            if (tabla[i] == valor) {
+                return true;
+            }
+            i = (i + 1) & mascara;
+        }
+        return false;
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * Empaqueta dos enteros no negativos en una sola clave long.
+     */
+    public static long empaquetar(int alto, int bajo) {
+        return ((long) alto << 32) | (bajo & 0xFFFFFFFFL);
+    }
+
+    private void redimensionar() {
+        long[] anterior = tabla;
+        tabla = new long[anterior.length * 2];
+        umbral = (int) (tabla.length * FACTOR_CARGA);
+
+        int mascara = tabla.length - 1;
+        for (long valor : anterior) {
+            if (valor != VACIO) {
+                int i = mezclar(valor) & mascara;
+                while (tabla[i] != VACIO) {
+                    i = (i + 1) & mascara;
+                }
+                tabla[i] = valor;
+            }
+        }
+    }
+
+    // mezcla final de MurmurHash3 para repartir bien claves con patrones (ids consecutivos)
+    private static int mezclar(long valor) {
+        valor ^= valor >>> 33;
+        valor *= 0xff51afd7ed558ccdL;
+        valor ^= valor >>> 33;
+        valor *= 0xc4ceb9fe1a85ec53L;
+        valor ^= valor >>> 33;
+        return (int) valor;
+    }
+}
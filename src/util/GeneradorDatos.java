@@ -0,0 +1,327 @@
+package util;
+
+import datos.GestorDatos;
+import modelo.*;
+import java.util.*;
+
+/**
+ * Genera un conjunto de datos sintético y reproducible (misma semilla, mismos
+ * datos) para pruebas de carga y de escala, y lo escribe con GestorDatos en
+ * los formatos que este lee.
+ *
+ * - Amistades: modelo de Barabási–Albert. Cada usuario nuevo se conecta con
+ *   "amigosPorUsuario" usuarios existentes elegidos con probabilidad
+ *   proporcional a su grado, así que la distribución de grados sigue una ley
+ *   de potencias (pocos usuarios con muchísimos amigos).
+ * - Publicaciones: el autor se elige también según su grado, la fecha decae
+ *   exponencialmente hacia el pasado (hay más publicaciones recientes) y los
+ *   likes siguen una log-normal (cola larga).
+ * - Interacciones: la publicación sigue una Zipf sobre el ranking de likes
+ *   (las populares se llevan casi todos) y el usuario otra Zipf más suave
+ *   (pocos usuarios muy activos). No se repiten pares (usuario, publicación).
+ *
+ * Uso: java util.GeneradorDatos <directorio> <usuarios> [semilla] [--csv | --binario]
+ * Por defecto escribe CSV y binario. Todo se arma en memoria antes de
+ * escribir, así que para millones de usuarios conviene subir el -Xmx.
+ */
+public class GeneradorDatos {
+    private static final long MILISEGUNDOS_POR_DIA = 24L * 60 * 60 * 1000;
+
+    private final Random random;
+    private final long ahora;
+
+    private int amigosPorUsuario = 5;
+    private int publicacionesPorUsuario = 2;
+    private int interaccionesPorUsuario = 10;
+    private int cantidadAnuncios = 200;
+    private double diasPromedioAntiguedad = 15;
+    private double exponenteZipfPublicaciones = 0.9;
+    private double exponenteZipfUsuarios = 0.8;
+
+    public GeneradorDatos(long semilla) {
+        this.random = new Random(semilla);
+        // "ahora" derivado de la semilla, así las fechas también son reproducibles
+        this.ahora = 1_760_000_000_000L + Math.floorMod(semilla, 1000L) * MILISEGUNDOS_POR_DIA;
+    }
+
+    public GeneradorDatos setAmigosPorUsuario(int amigosPorUsuario) {
+        this.amigosPorUsuario = amigosPorUsuario;
+        return this;
+    }
+
+    public GeneradorDatos setPublicacionesPorUsuario(int publicacionesPorUsuario) {
+        this.publicacionesPorUsuario = publicacionesPorUsuario;
+        return this;
+    }
+
+    public GeneradorDatos setInteraccionesPorUsuario(int interaccionesPorUsuario) {
+        this.interaccionesPorUsuario = interaccionesPorUsuario;
+        return this;
+    }
+
+    public GeneradorDatos setCantidadAnuncios(int cantidadAnuncios) {
+        this.cantidadAnuncios = cantidadAnuncios;
+        return this;
+    }
+
+    /**
+     * Conjunto generado, listo para pasarle a GestorDatos o a los servicios.
+     */
+    public static class Datos {
+        private final List<Usuario> usuarios;
+        private final List<PublicacionModelo> publicaciones;
+        private final List<Anuncio> anuncios;
+        private final List<Interaccion> interacciones;
+
+        Datos(List<Usuario> usuarios, List<PublicacionModelo> publicaciones, List<Anuncio> anuncios,
+                List<Interaccion> interacciones) {
+            this.usuarios = usuarios;
+            this.publicaciones = publicaciones;
+            this.anuncios = anuncios;
+            this.interacciones = interacciones;
+        }
+
+        public List<Usuario> getUsuarios() {
+            return usuarios;
+        }
+
+        public List<PublicacionModelo> getPublicaciones() {
+            return publicaciones;
+        }
+
+        public List<Anuncio> getAnuncios() {
+            return anuncios;
+        }
+
+        public List<Interaccion> getInteracciones() {
+            return interacciones;
+        }
+    }
+
+    public Datos generar(int cantidadUsuarios) {
+        String[] ids = new String[cantidadUsuarios];
+        for (int i = 0; i < cantidadUsuarios; i++) {
+            ids[i] = String.format("U%07d", i);
+        }
+
+        int[] extremos = generarAmistades(cantidadUsuarios);
+        List<Usuario> usuarios = armarUsuarios(ids, extremos);
+        List<PublicacionModelo> publicaciones = generarPublicaciones(ids, extremos);
+        List<Anuncio> anuncios = generarAnuncios();
+        List<Interaccion> interacciones = generarInteracciones(ids, publicaciones);
+        return new Datos(usuarios, publicaciones, anuncios, interacciones);
+    }
+
+    /**
+     * Barabási–Albert con la lista de extremos de aristas: cada arista (u, v)
+     * aparece como u y como v, así que elegir una posición al azar elige un
+     * usuario con probabilidad proporcional a su grado, en O(1).
+     * Devuelve los extremos: la arista i es (extremos[2i], extremos[2i+1]).
+     */
+    private int[] generarAmistades(int n) {
+        int m = Math.max(1, Math.min(amigosPorUsuario, n - 1));
+        if (n < 2) {
+            return new int[0];
+        }
+
+        // núcleo inicial: los primeros m+1 usuarios todos conectados entre sí
+        int inicial = m + 1;
+        long totalAristas = (long) inicial * (inicial - 1) / 2 + (long) (n - inicial) * m;
+        if (totalAristas * 2 > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Demasiadas amistades: " + totalAristas);
+        }
+        int[] extremos = new int[(int) (totalAristas * 2)];
+        int largo = 0;
+        for (int u = 0; u < Math.min(inicial, n); u++) {
+            for (int v = u + 1; v < Math.min(inicial, n); v++) {
+                extremos[largo++] = u;
+                extremos[largo++] = v;
+            }
+        }
+
+        int[] elegidos = new int[m];
+        for (int nuevo = inicial; nuevo < n; nuevo++) {
+            int cantidad = 0;
+            int finPrevio = largo; // solo se eligen usuarios anteriores a "nuevo"
+            while (cantidad < m) {
+                int candidato = extremos[random.nextInt(finPrevio)];
+                boolean repetido = false;
+                for (int i = 0; i < cantidad && !repetido; i++) {
+                    repetido = elegidos[i] == candidato;
+                }
+                if (!repetido) {
+                    elegidos[cantidad++] = candidato;
+                }
+            }
+            for (int i = 0; i < m; i++) {
+                extremos[largo++] = nuevo;
+                extremos[largo++] = elegidos[i];
+            }
+        }
+        return extremos;
+    }
+
+    // las amistades son mutuas: cada arista agrega el amigo en los dos usuarios
+    private static List<Usuario> armarUsuarios(String[] ids, int[] extremos) {
+        List<Usuario> usuarios = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            usuarios.add(new Usuario(ids[i], "Usuario " + i));
+        }
+        // Barabási–Albert no repite aristas, así que no hace falta el contains de agregarAmigo
+        for (int i = 0; i < extremos.length; i += 2) {
+            usuarios.get(extremos[i]).getAmigos().add(ids[extremos[i + 1]]);
+            usuarios.get(extremos[i + 1]).getAmigos().add(ids[extremos[i]]);
+        }
+        return usuarios;
+    }
+
+    private List<PublicacionModelo> generarPublicaciones(String[] ids, int[] extremos) {
+        int cantidad = ids.length * publicacionesPorUsuario;
+        List<PublicacionModelo> publicaciones = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            // los usuarios con más amigos publican más
+            int autor = extremos.length > 0 ? extremos[random.nextInt(extremos.length)] : random.nextInt(ids.length);
+            double dias = Math.min(365, -Math.log(1 - random.nextDouble()) * diasPromedioAntiguedad);
+            Date fecha = new Date(ahora - (long) (dias * MILISEGUNDOS_POR_DIA));
+            int likes = (int) Math.min(1_000_000, Math.exp(2 + 1.5 * random.nextGaussian()));
+            int tamano = 1 + (int) Math.min(9, -Math.log(1 - random.nextDouble()) * 2);
+            int beneficio = likes / 2 + random.nextInt(50);
+            publicaciones.add(new PublicacionModelo(String.format("P%08d", i), ids[autor],
+                    "Publicación sintética " + i, fecha, likes, tamano, beneficio));
+        }
+        return publicaciones;
+    }
+
+    // el alcance crece con el costo, con ruido
+    private List<Anuncio> generarAnuncios() {
+        List<Anuncio> anuncios = new ArrayList<>(cantidadAnuncios);
+        for (int i = 0; i < cantidadAnuncios; i++) {
+            int costo = 1 + random.nextInt(20);
+            int alcance = costo * (10 + random.nextInt(21));
+            anuncios.add(new Anuncio("Anuncio " + i, costo, alcance));
+        }
+        return anuncios;
+    }
+
+    private List<Interaccion> generarInteracciones(String[] ids, List<PublicacionModelo> publicaciones) {
+        if (publicaciones.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // ranking de popularidad: la publicación con más likes es el rango 0 de la Zipf
+        Integer[] orden = new Integer[publicaciones.size()];
+        for (int i = 0; i < orden.length; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, (a, b) -> Integer.compare(publicaciones.get(b).getLikes(),
+                publicaciones.get(a).getLikes()));
+
+        double[] acumuladaPublicaciones = acumuladaZipf(orden.length, exponenteZipfPublicaciones);
+        double[] acumuladaUsuarios = acumuladaZipf(ids.length, exponenteZipfUsuarios);
+        int[] usuarioPorRango = permutacion(ids.length);
+
+        // no puede haber más likes que pares posibles
+        long maximo = Math.min((long) ids.length * interaccionesPorUsuario, (long) ids.length * orden.length / 2);
+        int cantidad = (int) Math.min(maximo, Integer.MAX_VALUE - 8);
+        List<Interaccion> interacciones = new ArrayList<>(cantidad);
+        ConjuntoLong pares = new ConjuntoLong(cantidad);
+        // las publicaciones más populares se saturan (ya les dio like casi todo el que
+        // sale en la Zipf), así que los intentos se acotan y puede haber algo menos de likes
+        long intentos = 4L * cantidad;
+        while (interacciones.size() < cantidad && intentos-- > 0) {
+            int publicacion = orden[muestrear(acumuladaPublicaciones)];
+            int usuario = usuarioPorRango[muestrear(acumuladaUsuarios)];
+            if (!pares.agregar(ConjuntoLong.empaquetar(usuario, publicacion))) {
+                // repetido: otro usuario cualquiera, así la publicación conserva su popularidad
+                usuario = random.nextInt(ids.length);
+                if (!pares.agregar(ConjuntoLong.empaquetar(usuario, publicacion))) {
+                    continue;
+                }
+            }
+            PublicacionModelo pub = publicaciones.get(publicacion);
+            Interaccion interaccion = new Interaccion(ids[usuario], pub.getId(), pub.getAutorId());
+            // el like llega después de la publicación, más probablemente al principio
+            long desde = pub.getFecha().getTime();
+            long espera = (long) (-Math.log(1 - random.nextDouble()) * MILISEGUNDOS_POR_DIA);
+            interaccion.setTimestamp(Math.min(ahora, desde + espera));
+            interacciones.add(interaccion);
+        }
+        return interacciones;
+    }
+
+    // acumulada normalizada de P(rango k) ~ 1 / (k+1)^s
+    private static double[] acumuladaZipf(int n, double s) {
+        double[] acumulada = new double[n];
+        double suma = 0;
+        for (int k = 0; k < n; k++) {
+            suma += 1 / Math.pow(k + 1, s);
+            acumulada[k] = suma;
+        }
+        for (int k = 0; k < n; k++) {
+            acumulada[k] /= suma;
+        }
+        return acumulada;
+    }
+
+    // rango según la acumulada, por búsqueda binaria: O(log n)
+    private int muestrear(double[] acumulada) {
+        int rango = Arrays.binarySearch(acumulada, random.nextDouble());
+        rango = rango >= 0 ? rango : -rango - 1;
+        return Math.min(rango, acumulada.length - 1);
+    }
+
+    private int[] permutacion(int n) {
+        int[] valores = new int[n];
+        for (int i = 0; i < n; i++) {
+            valores[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temporal = valores[i];
+            valores[i] = valores[j];
+            valores[j] = temporal;
+        }
+        return valores;
+    }
+
+    /**
+     * Escribe el conjunto en el directorio, reemplazando instantáneas y
+     * bitácoras que hubiera.
+     */
+    public static void escribir(Datos datos, String directorio, GestorDatos.Formato formato) {
+        GestorDatos gestor = new GestorDatos(directorio, formato);
+        gestor.guardarUsuarios(datos.getUsuarios());
+        gestor.guardarPublicaciones(datos.getPublicaciones());
+        gestor.guardarAnuncios(datos.getAnuncios());
+        gestor.guardarInteracciones(datos.getInteracciones());
+        gestor.cerrar();
+    }
+
+    public static void main(String[] args) {
+        List<String> argumentos = new ArrayList<>(Arrays.asList(args));
+        boolean soloCsv = argumentos.remove("--csv");
+        boolean soloBinario = argumentos.remove("--binario");
+        if (argumentos.size() < 2 || (soloCsv && soloBinario)) {
+            System.out.println("Uso: java util.GeneradorDatos <directorio> <usuarios> [semilla] [--csv | --binario]");
+            return;
+        }
+        String directorio = argumentos.get(0);
+        int usuarios = Integer.parseInt(argumentos.get(1));
+        long semilla = argumentos.size() > 2 ? Long.parseLong(argumentos.get(2)) : 42;
+
+        long inicio = System.currentTimeMillis();
+        Datos datos = new GeneradorDatos(semilla).generar(usuarios);
+        System.out.println("Generados " + datos.getUsuarios().size() + " usuarios, "
+                + datos.getPublicaciones().size() + " publicaciones, "
+                + datos.getAnuncios().size() + " anuncios y "
+                + datos.getInteracciones().size() + " interacciones en "
+                + (System.currentTimeMillis() - inicio) + " ms.");
+
+        if (!soloBinario) {
+            escribir(datos, directorio, GestorDatos.Formato.CSV);
+        }
+        if (!soloCsv) {
+            escribir(datos, directorio, GestorDatos.Formato.BINARIO);
+        }
+        System.out.println("Datos escritos en " + directorio);
+    }
+}
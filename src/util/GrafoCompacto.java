@@ -0,0 +1,201 @@
+package util;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Grafo dirigido en formato CSR (compressed sparse row).
+ * Los ids de usuario se internan a enteros densos 0..n-1 y las aristas del
+ * nodo u ocupan las posiciones desplazamientos[u] .. desplazamientos[u+1]-1
+ * de los arreglos destinos y pesos. Recorrer vecinos no crea objetos ni hace
+ * hashing de Strings.
+ *
+ * La estructura es inmutable salvo por los pesos, que los algoritmos pueden
+ * completar a medida que los calculan (NaN = peso todavía no calculado), y
+ * por el grafo invertido, que se arma recién cuando alguien lo pide.
+ */
+public class GrafoCompacto {
+    private final String[] ids;
+    private final Map<String, Integer> indices;
+    private final int[] desplazamientos;
+    private final int[] destinos;
+    private final float[] pesos;
+    private GrafoCompacto invertido;
+
+    private GrafoCompacto(String[] ids, Map<String, Integer> indices, int[] desplazamientos, int[] destinos) {
+        this.ids = ids;
+        this.indices = indices;
+        this.desplazamientos = desplazamientos;
+        this.destinos = destinos;
+        this.pesos = new float[destinos.length];
+        Arrays.fill(pesos, Float.NaN);
+    }
+
+    /**
+     * Construye el grafo a partir de listas de adyacencia. Los ids que solo
+     * aparecen como destino también se internan (quedan sin aristas salientes).
+     */
+    public static GrafoCompacto desde(Map<String, List<String>> adyacencia) {
+        return desde(new ArrayList<>(adyacencia.keySet()), adyacencia::get);
+    }
+
+    /**
+     * Construye el grafo respetando el orden de ids dado, de modo que quien
+     * mantenga ese orden entre construcciones obtiene índices estables.
+     * El orden de los vecinos de cada nodo es el de su lista.
+     */
+    public static GrafoCompacto desde(List<String> ordenIds, Function<String, List<String>> vecinos) {
+        Map<String, Integer> indices = new HashMap<>(ordenIds.size() * 2);
+        List<String> ids = new ArrayList<>(ordenIds);
+        for (int i = 0; i < ids.size(); i++) {
+            indices.put(ids.get(i), i);
+        }
+
+        // primera pasada: contar aristas e internar destinos desconocidos
+        int cantidadOrigenes = ids.size();
+        int[] desplazamientos = new int[cantidadOrigenes + 1];
+        for (int u = 0; u < cantidadOrigenes; u++) {
+            List<String> lista = vecinos.apply(ids.get(u));
+            int grado = lista == null ? 0 : lista.size();
+            desplazamientos[u + 1] = desplazamientos[u] + grado;
+            if (lista != null) {
+                for (String destino : lista) {
+                    if (!indices.containsKey(destino)) {
+                        indices.put(destino, ids.size());
+                        ids.add(destino);
+                    }
+                }
+            }
+        }
+
+        // los nodos internados como destino no tienen aristas salientes
+        int n = ids.size();
+        if (n > cantidadOrigenes) {
+            int[] ampliado = Arrays.copyOf(desplazamientos, n + 1);
+            Arrays.fill(ampliado, cantidadOrigenes + 1, n + 1, desplazamientos[cantidadOrigenes]);
+            desplazamientos = ampliado;
+        }
+
+        // segunda pasada: llenar destinos
+        int[] destinos = new int[desplazamientos[n]];
+        for (int u = 0; u < cantidadOrigenes; u++) {
+            List<String> lista = vecinos.apply(ids.get(u));
+            if (lista != null) {
+                int posicion = desplazamientos[u];
+                for (String destino : lista) {
+                    destinos[posicion++] = indices.get(destino);
+                }
+            }
+        }
+
+        return new GrafoCompacto(ids.toArray(new String[0]), indices, desplazamientos, destinos);
+    }
+
+    public int cantidadNodos() {
+        return ids.length;
+    }
+
+    public int cantidadAristas() {
+        return destinos.length;
+    }
+
+    /**
+     * Índice interno del id, o -1 si no está en el grafo.
+     */
+    public int indice(String id) {
+        Integer indice = indices.get(id);
+        return indice != null ? indice : -1;
+    }
+
+    public String id(int nodo) {
+        return ids[nodo];
+    }
+
+    // primera arista del nodo
+    public int inicio(int nodo) {
+        return desplazamientos[nodo];
+    }
+
+    // una posición después de la última arista del nodo
+    public int fin(int nodo) {
+        return desplazamientos[nodo + 1];
+    }
+
+    public int grado(int nodo) {
+        return desplazamientos[nodo + 1] - desplazamientos[nodo];
+    }
+
+    public int destino(int arista) {
+        return destinos[arista];
+    }
+
+    public float peso(int arista) {
+        return pesos[arista];
+    }
+
+    public void setPeso(int arista, float peso) {
+        pesos[arista] = peso;
+    }
+
+    /**
+     * Posición de la arista u -> v, o -1 si no existe. O(grado(u)).
+     */
+    public int buscarArista(int u, int v) {
+        for (int arista = desplazamientos[u]; arista < desplazamientos[u + 1]; arista++) {
+            if (destinos[arista] == v) {
+                return arista;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * El mismo grafo con todas las aristas dadas vuelta y los mismos índices,
+     * para recorrer los predecesores de cada nodo. Se construye la primera vez
+     * (O(n + aristas)) y queda guardado; sus pesos empiezan sin calcular.
+     */
+    public GrafoCompacto invertido() {
+        if (invertido == null) {
+            int n = ids.length;
+            int[] desplazamientosInvertidos = new int[n + 1];
+            for (int destino : destinos) {
+                desplazamientosInvertidos[destino + 1]++;
+            }
+            for (int u = 0; u < n; u++) {
+                desplazamientosInvertidos[u + 1] += desplazamientosInvertidos[u];
+            }
+            // recorriendo los orígenes en orden, los predecesores de cada nodo quedan ordenados
+            int[] origenes = new int[destinos.length];
+            int[] siguiente = Arrays.copyOf(desplazamientosInvertidos, n);
+            for (int u = 0; u < n; u++) {
+                for (int arista = desplazamientos[u]; arista < desplazamientos[u + 1]; arista++) {
+                    origenes[siguiente[destinos[arista]]++] = u;
+                }
+            }
+            GrafoCompacto grafoInvertido = new GrafoCompacto(ids, indices, desplazamientosInvertidos, origenes);
+            grafoInvertido.invertido = this;
+            invertido = grafoInvertido;
+        }
+        return invertido;
+    }
+
+    /**
+     * Copia los pesos ya calculados de una versión anterior del grafo. Sirve
+     * cuando los índices son estables y las listas de vecinos solo crecieron
+     * por el final: las aristas viejas de cada nodo son un prefijo de las nuevas.
+     */
+    public void copiarPesosDe(GrafoCompacto anterior) {
+        int nodosComunes = Math.min(anterior.cantidadNodos(), cantidadNodos());
+        for (int u = 0; u < nodosComunes; u++) {
+            if (!ids[u].equals(anterior.ids[u])) {
+                continue;
+            }
+            int cantidad = Math.min(anterior.grado(u), grado(u));
+            int origen = anterior.inicio(u);
+            int destino = inicio(u);
+            for (int k = 0; k < cantidad && anterior.destinos[origen + k] == destinos[destino + k]; k++) {
+                pesos[destino + k] = anterior.pesos[origen + k];
+            }
+        }
+    }
+}
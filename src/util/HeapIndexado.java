@@ -0,0 +1,131 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Min-heap indexado de aridad 4 sobre elementos enteros 0..capacidad-1.
+ * Cada elemento aparece a lo sumo una vez; su posición en el heap se guarda
+ * en un arreglo, lo que permite reducir su prioridad (decrease-key) en
+ * O(log n) sin insertar duplicados. Las prioridades son double primitivos.
+ */
+public class HeapIndexado {
+    private static final int ARIDAD = 4;
+
+    private final int[] heap;          // elementos ordenados como heap
+    private final int[] posicion;      // elemento -> posición en heap, -1 si no está
+    private final double[] prioridades; // prioridad de cada elemento en el heap
+    private int tamano;
+
+    public HeapIndexado(int capacidad) {
+        this.heap = new int[capacidad];
+        this.posicion = new int[capacidad];
+        this.prioridades = new double[capacidad];
+        Arrays.fill(posicion, -1);
+    }
+
+    public boolean estaVacio() {
+        return tamano == 0;
+    }
+
+    public int tamano() {
+        return tamano;
+    }
+
+    public boolean contiene(int elemento) {
+        return posicion[elemento] >= 0;
+    }
+
+    public int capacidad() {
+        return heap.length;
+    }
+
+    /**
+     * Prioridad del mínimo, sin extraerlo.
+     */
+    public double prioridadMinima() {
+        return prioridades[heap[0]];
+    }
+
+    /**
+     * Inserta el elemento o, si ya está, reduce su prioridad. Un aumento de
+     * prioridad se ignora.
+     */
+    public void insertarOReducir(int elemento, double prioridad) {
+        int i = posicion[elemento];
+        if (i < 0) {
+            i = tamano++;
+            heap[i] = elemento;
+            posicion[elemento] = i;
+        } else if (prioridad >= prioridades[elemento]) {
+            return;
+        }
+        prioridades[elemento] = prioridad;
+        subir(i);
+    }
+
+    public int extraerMinimo() {
+        int minimo = heap[0];
+        posicion[minimo] = -1;
+        tamano--;
+        if (tamano > 0) {
+            int ultimo = heap[tamano];
+            heap[0] = ultimo;
+            posicion[ultimo] = 0;
+            bajar(0);
+        }
+        return minimo;
+    }
+
+    /**
+     * Vacía el heap en O(tamaño) para reutilizarlo.
+     */
+    public void limpiar() {
+        for (int i = 0; i < tamano; i++) {
+            posicion[heap[i]] = -1;
+        }
+        tamano = 0;
+    }
+
+    private void subir(int i) {
+        int elemento = heap[i];
+        double prioridad = prioridades[elemento];
+        while (i > 0) {
+            int padre = (i - 1) / ARIDAD;
+            int elementoPadre = heap[padre];
+            if (prioridades[elementoPadre] <= prioridad) {
+                break;
+            }
+            heap[i] = elementoPadre;
+            posicion[elementoPadre] = i;
+            i = padre;
+        }
+        heap[i] = elemento;
+        posicion[elemento] = i;
+    }
+
+    private void bajar(int i) {
+        int elemento = heap[i];
+        double prioridad = prioridades[elemento];
+        while (true) {
+            int primerHijo = i * ARIDAD + 1;
+            if (primerHijo >= tamano) {
+                break;
+            }
+            int menor = primerHijo;
+            int ultimoHijo = Math.min(primerHijo + ARIDAD, tamano);
+            for (int hijo = primerHijo + 1; hijo < ultimoHijo; hijo++) {
+                if (prioridades[heap[hijo]] < prioridades[heap[menor]]) {
+                    menor = hijo;
+                }
+            }
+            if (prioridades[heap[menor]] >= prioridad) {
+                break;
+            }
+            heap[i] = heap[menor];
+            posicion[heap[i]] = i;
+            i = menor;
+        }
+        heap[i] = elemento;
+        posicion[elemento] = i;
+    }
+}
@@ -0,0 +1,339 @@
+package util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro de métricas de rendimiento sin locks: contadores e histogramas de
+ * latencia (o de tamaños) por nombre, para ver qué módulo es lento y con qué
+ * entradas.
+ *
+ * - Los contadores son LongAdder: cada hilo suma en su propia celda.
+ * - Los histogramas son log-lineales, al estilo HDR: 16 sub-rangos por cada
+ *   potencia de 2, así que cualquier valor se ubica con un error relativo de
+ *   a lo sumo 1/16 (6,25 %) y alcanzan ~1000 buckets para todo el rango de
+ *   long. Los buckets están repartidos en franjas (una por grupo de hilos)
+ *   para que hilos distintos no compitan por la misma línea de caché; la
+ *   instantánea las suma.
+ *
+ * Convención de nombres: "modulo.operacion.ns" para duraciones en
+ * nanosegundos y "modulo.cosa" para tamaños o cantidades.
+ */
+public final class Metricas {
+    private static final ConcurrentHashMap<String, Contador> CONTADORES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Histograma> HISTOGRAMAS = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService PLANIFICADOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "metricas-volcado");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private Metricas() {
+    }
+
+    /**
+     * Contador con ese nombre (se crea la primera vez). Conviene guardarlo en
+     * un campo static en lugar de buscarlo en cada llamada.
+     */
+    public static Contador contador(String nombre) {
+        return CONTADORES.computeIfAbsent(nombre, n -> new Contador());
+    }
+
+    public static Histograma histograma(String nombre) {
+        return HISTOGRAMAS.computeIfAbsent(nombre, n -> new Histograma());
+    }
+
+    /**
+     * Estado actual de todas las métricas, ordenadas por nombre.
+     */
+    public static Instantanea instantanea() {
+        Map<String, Long> contadores = new TreeMap<>();
+        CONTADORES.forEach((nombre, contador) -> contadores.put(nombre, contador.valor()));
+        Map<String, Resumen> histogramas = new TreeMap<>();
+        HISTOGRAMAS.forEach((nombre, histograma) -> histogramas.put(nombre, histograma.resumen()));
+        return new Instantanea(System.currentTimeMillis(), contadores, histogramas);
+    }
+
+    /**
+     * Pone todo en cero (los objetos ya obtenidos siguen siendo válidos).
+     */
+    public static void reiniciar() {
+        CONTADORES.values().forEach(Contador::reiniciar);
+        HISTOGRAMAS.values().forEach(Histograma::reiniciar);
+    }
+
+    /**
+     * Agrega la instantánea actual al final del archivo, en CSV:
+     * momento,tipo,nombre,cantidad,suma,minimo,maximo,p50,p90,p99,p999
+     * (en los contadores solo va la cantidad).
+     */
+    public static void volcar(File archivo) throws IOException {
+        boolean nuevo = !archivo.exists() || archivo.length() == 0;
+        try (PrintWriter pw = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(archivo, true), StandardCharsets.UTF_8)))) {
+            if (nuevo) {
+                pw.println("momento,tipo,nombre,cantidad,suma,minimo,maximo,p50,p90,p99,p999");
+            }
+            instantanea().escribirCSV(pw);
+        }
+    }
+
+    /**
+     * Vuelca las métricas al archivo cada "periodo" en un hilo aparte, y una
+     * última vez al terminar la JVM. Cancelar la tarea devuelta detiene los
+     * volcados periódicos.
+     */
+    public static ScheduledFuture<?> volcarPeriodicamente(File archivo, long periodo, TimeUnit unidad) {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> volcarSinExcepcion(archivo), "metricas-final"));
+        return PLANIFICADOR.scheduleAtFixedRate(() -> volcarSinExcepcion(archivo), periodo, periodo, unidad);
+    }
+
+    private static void volcarSinExcepcion(File archivo) {
+        try {
+            volcar(archivo);
+        } catch (IOException e) {
+            System.err.println("Error al volcar métricas: " + e.getMessage());
+        }
+    }
+
+    public static final class Contador {
+        private final LongAdder valor = new LongAdder();
+
+        public void incrementar() {
+            valor.increment();
+        }
+
+        public void sumar(long cantidad) {
+            valor.add(cantidad);
+        }
+
+        public long valor() {
+            return valor.sum();
+        }
+
+        void reiniciar() {
+            valor.reset();
+        }
+    }
+
+    public static final class Histograma {
+        private static final int BITS_SUBRANGO = 4;
+        private static final int SUBRANGOS = 1 << BITS_SUBRANGO;
+        // valores 0..15 uno por bucket, y 16 buckets por cada potencia de 2 hasta 2^63
+        private static final int BUCKETS = (64 - BITS_SUBRANGO + 1) * SUBRANGOS;
+        private static final int FRANJAS = Math.min(16,
+                Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+        private final AtomicLongArray[] franjas = new AtomicLongArray[FRANJAS];
+        private final LongAdder suma = new LongAdder();
+        private final LongAccumulator minimo = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maximo = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+        Histograma() {
+            for (int i = 0; i < FRANJAS; i++) {
+                franjas[i] = new AtomicLongArray(BUCKETS);
+            }
+        }
+
+        /**
+         * Registra un valor (los negativos cuentan como 0).
+         */
+        public void registrar(long valor) {
+            valor = Math.max(0, valor);
+            int franja = (int) Thread.currentThread().getId() & (FRANJAS - 1);
+            franjas[franja].incrementAndGet(bucket(valor));
+            suma.add(valor);
+            minimo.accumulate(valor);
+            maximo.accumulate(valor);
+        }
+
+        /**
+         * Registra el tiempo transcurrido desde un System.nanoTime() anterior.
+         */
+        public void registrarDesde(long inicioNanos) {
+            registrar(System.nanoTime() - inicioNanos);
+        }
+
+        public Resumen resumen() {
+            long[] conteos = new long[BUCKETS];
+            long total = 0;
+            for (AtomicLongArray franja : franjas) {
+                for (int b = 0; b < BUCKETS; b++) {
+                    long conteo = franja.get(b);
+                    conteos[b] += conteo;
+                    total += conteo;
+                }
+            }
+            long min = total == 0 ? 0 : minimo.get();
+            long max = total == 0 ? 0 : maximo.get();
+            return new Resumen(total, suma.sum(), min, max,
+                    percentil(conteos, total, 0.50, max), percentil(conteos, total, 0.90, max),
+                    percentil(conteos, total, 0.99, max), percentil(conteos, total, 0.999, max));
+        }
+
+        void reiniciar() {
+            for (AtomicLongArray franja : franjas) {
+                for (int b = 0; b < BUCKETS; b++) {
+                    franja.set(b, 0);
+                }
+            }
+            suma.reset();
+            minimo.reset();
+            maximo.reset();
+        }
+
+        // los valores chicos van tal cual; el resto según su potencia de 2 y los 4 bits siguientes
+        static int bucket(long valor) {
+            if (valor < SUBRANGOS) {
+                return (int) valor;
+            }
+            int desplazamiento = 63 - Long.numberOfLeadingZeros(valor) - BITS_SUBRANGO;
+            return (desplazamiento + 1) * SUBRANGOS + (int) ((valor >>> desplazamiento) & (SUBRANGOS - 1));
+        }
+
+        // mayor valor que cae en el bucket (cota superior, como en HDR)
+        static long maximoDelBucket(int bucket) {
+            if (bucket < SUBRANGOS) {
+                return bucket;
+            }
+            int desplazamiento = bucket / SUBRANGOS - 1;
+            long inicio = (long) (SUBRANGOS + bucket % SUBRANGOS) << desplazamiento;
+            return inicio + ((1L << desplazamiento) - 1);
+        }
+
+        private static long percentil(long[] conteos, long total, double fraccion, long maximo) {
+            if (total == 0) {
+                return 0;
+            }
+            long objetivo = Math.max(1, (long) Math.ceil(total * fraccion));
+            long acumulado = 0;
+            for (int b = 0; b < conteos.length; b++) {
+                acumulado += conteos[b];
+                if (acumulado >= objetivo) {
+                    return Math.min(maximoDelBucket(b), maximo);
+                }
+            }
+            return maximo;
+        }
+    }
+
+    /**
+     * Resumen de un histograma: cantidad, suma, extremos y percentiles.
+     */
+    public static final class Resumen {
+        private final long cantidad;
+        private final long suma;
+        private final long minimo;
+        private final long maximo;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+
+        Resumen(long cantidad, long suma, long minimo, long maximo, long p50, long p90, long p99, long p999) {
+            this.cantidad = cantidad;
+            this.suma = suma;
+            this.minimo = minimo;
+            this.maximo = maximo;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.p999 = p999;
+        }
+
+        public long getCantidad() {
+            return cantidad;
+        }
+
+        public long getSuma() {
+            return suma;
+        }
+
+        public double getPromedio() {
+            return cantidad == 0 ? 0 : (double) suma / cantidad;
+        }
+
+        public long getMinimo() {
+            return minimo;
+        }
+
+        public long getMaximo() {
+            return maximo;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getP999() {
+            return p999;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("n=%d prom=%.1f min=%d p50=%d p90=%d p99=%d p999=%d max=%d",
+                    cantidad, getPromedio(), minimo, p50, p90, p99, p999, maximo);
+        }
+    }
+
+    public static final class Instantanea {
+        private final long momento;
+        private final Map<String, Long> contadores;
+        private final Map<String, Resumen> histogramas;
+
+        Instantanea(long momento, Map<String, Long> contadores, Map<String, Resumen> histogramas) {
+            this.momento = momento;
+            this.contadores = Collections.unmodifiableMap(contadores);
+            this.histogramas = Collections.unmodifiableMap(histogramas);
+        }
+
+        public long getMomento() {
+            return momento;
+        }
+
+        public Map<String, Long> getContadores() {
+            return contadores;
+        }
+
+        public Map<String, Resumen> getHistogramas() {
+            return histogramas;
+        }
+
+        void escribirCSV(PrintWriter pw) {
+            for (Map.Entry<String, Long> contador : contadores.entrySet()) {
+                pw.println(momento + ",contador," + contador.getKey() + "," + contador.getValue() + ",,,,,,,");
+            }
+            for (Map.Entry<String, Resumen> entrada : histogramas.entrySet()) {
+                Resumen r = entrada.getValue();
+                pw.println(momento + ",histograma," + entrada.getKey() + "," + r.cantidad + "," + r.suma + ","
+                        + r.minimo + "," + r.maximo + "," + r.p50 + "," + r.p90 + "," + r.p99 + "," + r.p999);
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder texto = new StringBuilder();
+            for (Map.Entry<String, Long> contador : contadores.entrySet()) {
+                texto.append(contador.getKey()).append(" = ").append(contador.getValue()).append('\n');
+            }
+            for (Map.Entry<String, Resumen> histograma : histogramas.entrySet()) {
+                texto.append(histograma.getKey()).append(": ").append(histograma.getValue()).append('\n');
+            }
+            return texto.toString();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package util;
+
+import java.util.List;
+
+/**
+ * Una página de resultados más el cursor para pedir la siguiente.
+ * El cursor es opaco para quien lo recibe; null indica que no hay más.
+ */
+public class Pagina<T> {
+    private final List<T> elementos;
+    private final String siguienteCursor;
+
+    public Pagina(List<T> elementos, String siguienteCursor) {
+        this.elementos = elementos;
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    public boolean hayMas() {
+        return siguienteCursor != null;
+    }
+}